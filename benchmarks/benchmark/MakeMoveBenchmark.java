@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import boardcomponents.Board;
+import game.IntMoveList;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MakeMoveBenchmark {
+
+    // Times making and undoing each legal move of a position, and calculating a zobrist hash from scratch, which making a move
+    // avoids by updating the hash incrementally
+
+    @Param({"start", "kiwipete", "endgame", "promotions", "talkchess", "middlegame"})
+    public String position;
+
+    private Board board;
+    private IntMoveList legalMoves;
+
+    @Setup
+    public void setup() {
+        board = Positions.board(position);
+        legalMoves = Positions.legalMoves(board);
+    }
+
+    // Makes and undoes every legal move of the position, so the time is for all of them together
+    @Benchmark
+    public void makeUndoAllMoves(Blackhole blackhole) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            board.makeMove(legalMoves.get(i));
+            blackhole.consume(board.zobristHash());
+            board.undoMove();
+        }
+    }
+
+    // Calculates the zobrist hash of the position from scratch
+    @Benchmark
+    public long computeZobristHash() {
+        return board.computeZobristHash();
+    }
+}
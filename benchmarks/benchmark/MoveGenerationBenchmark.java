@@ -0,0 +1,50 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import boardcomponents.Board;
+import game.IntMoveList;
+import game.MoveGeneration;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    // Times generating every legal move of a position, which is the inner loop of both perft and the search
+
+    @Param({"start", "kiwipete", "endgame", "promotions", "talkchess", "middlegame"})
+    public String position;
+
+    private MoveGeneration generator;
+    private final IntMoveList moves = new IntMoveList();
+
+    @Setup
+    public void setup() {
+        Board board = Positions.board(position);
+        generator = board.moveGeneration();
+    }
+
+    // Generates the legal moves, returning how many there are so the work cannot be removed
+    @Benchmark
+    public int generateMoves() {
+        moves.clear();
+        generator.generateMoves(moves);
+        return moves.size();
+    }
+}
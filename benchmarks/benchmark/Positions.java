@@ -0,0 +1,39 @@
+package benchmark;
+
+import boardcomponents.Board;
+import game.IntMoveList;
+
+final class Positions {
+
+    // Well known positions from the Chess Programming Wiki's perft results, covering the opening, the middlegame and the endgame
+    // Benchmarks take the name of a position as a parameter, so each position is reported on its own line
+
+    static final String[] names = {"start", "kiwipete", "endgame", "promotions", "talkchess", "middlegame"};
+    private static final String[] fens = {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                                          "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                                          "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                                          "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                                          "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                                          "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"};
+
+    private Positions() {
+    }
+
+    // Returns a new board for the position with the given name
+    static Board board(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return new Board(fens[i]);
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown position " + name);
+    }
+
+    // Returns the legal moves of a board
+    static IntMoveList legalMoves(Board board) {
+        IntMoveList moves = new IntMoveList();
+        board.moveGeneration().generateMoves(moves);
+        return moves;
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import boardcomponents.Board;
+import game.Search;
+import game.SearchOptions;
+import game.TimeManager;
+import game.TranspositionTable;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    // Times a fixed-depth search of a position from an empty transposition table, which covers everything the other
+    // benchmarks time together with move ordering and evaluation
+
+    private static final int searchDepth = 5;
+    private static final int tableSizeMB = 16;
+
+    @Param({"start", "kiwipete", "endgame", "promotions", "talkchess", "middlegame"})
+    public String position;
+
+    private Board board;
+    private TranspositionTable table;
+    private Search search;
+
+    @Setup
+    public void setup() {
+        board = Positions.board(position);
+        table = TranspositionTable.create(tableSizeMB);
+        search = new Search(0, table, new SearchOptions());
+    }
+
+    // Empties the table, so that every search does the same work
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    // Searches the position, returning the best move so the work cannot be removed
+    @Benchmark
+    public int searchToDepth() {
+        search.setPosition(board);
+        return search.iterativeDeepening(TimeManager.infinite().limitDepth(searchDepth), null);
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.TranspositionTable;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TranspositionTableBenchmark {
+
+    // Times storing and probing random positions
+    // The default table of 256 MB is far larger than the last level cache of current CPUs, so nearly every access misses the
+    // caches the way it does in a long search; 1 MB shows the cost when the table fits in the caches instead
+
+    private static final int keyCount = 1 << 22; // Random hashes to cycle through, enough to touch every bucket of the table
+
+    @Param({"256", "1"})
+    public int sizeMB;
+
+    private TranspositionTable table;
+    private final long[] keys = new long[keyCount];
+    private int next; // The index of the next key to use
+
+    @Setup
+    public void setup() {
+        table = TranspositionTable.create(sizeMB);
+        Random random = new Random(0);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+            table.store(keys[i], i & 31, TranspositionTable.EXACT, 0, i);
+        }
+    }
+
+    // Stores one position
+    @Benchmark
+    public void store() {
+        int index = next++ & (keyCount - 1);
+        table.store(keys[index], index & 31, TranspositionTable.EXACT, 0, index);
+    }
+
+    // Probes one position, returning the entry found so the work cannot be removed
+    @Benchmark
+    public long probe() {
+        return table.probe(keys[next++ & (keyCount - 1)]);
+    }
+}
@@ -2,8 +2,6 @@ package boardcomponents;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Random;
-import java.util.Stack;
 
 import game.MoveGeneration;
 
@@ -14,10 +12,8 @@ public class Board {
     // For a bitboard, we represent the board with 12 64-bit long's, one for each piece/color combination
     // When a piece is at a certain position on the bitboard, the bit with the same position will be set to 1
 
-    // Zobrist Hashing Info.
-    private static Random rand = new Random(); // Random object used to generate zobrist keys
-    private long[][] zobristKeys = new long[12][64]; // Zobrist keys, used to store board states with zobrist hashes
-	// The order for the zobrist keys is K, Q, R, B, N, P, k, q, r, b, n, p, where uppercase represents the key for a white piece and vice versa
+    // Zobrist Hashing Info. The keys are shared by all boards, see Zobrist
+    private long zobristHash; // The zobrist hash of the current board state, updated with each move
 
     // Piece information
 	private int pieceCount; // The number of pieces on the board
@@ -31,9 +27,25 @@ public class Board {
     // Determines whether it is white's turn to move
     private boolean whiteToMove;
 
+    // The move generator for this board
+    private MoveGeneration moveGeneration;
+
+    // Evaluation information, kept up to date as moves are made, see PieceSquareTables
+    private int midgameScore; // The midgame material and tile values of all pieces, positive for white
+    private int endgameScore; // The endgame material and tile values of all pieces, positive for white
+    private int phase; // The game phase, which falls from PieceSquareTables.MAX_PHASE towards 0 as pieces are captured
+
     // Board history, used for undoing moves
-    private Stack<BoardState> boardHistory;
-    private double currentEval;
+    // Each made move saves an undo record of primitives at index historySize, so making and undoing moves does not allocate
+    // The pieces are restored by reverting the move itself, so only state that cannot be recovered from the move is saved
+    private int historySize; // The number of moves that can be undone
+    private int[] undoMoves = new int[256]; // The moves that were made
+    private long[] undoFirstMoves = new long[256]; // The pieces that had not moved before each move
+    private long[] undoEnPassant = new long[256]; // The en passant tile before each move
+    private long[] undoZobristHash = new long[256]; // The zobrist hash before each move
+    private int[] undoMidgameScore = new int[256]; // The midgame score before each move
+    private int[] undoEndgameScore = new int[256]; // The endgame score before each move
+    private int[] undoPhase = new int[256]; // The game phase before each move
 	
     // Initializes the board state using Forsyth-Edwards Notation
 	// Credit to Chess.com for information on FEN.
@@ -41,14 +53,8 @@ public class Board {
 	public Board(String fen) {
         String[] fields = fen.split(" ");
 		pieceCount = 0;
-        boardHistory = new Stack<BoardState>();
-
-		// Generate zobrist keys
-		for (int position = 0; position < 64; position++) {
-			for (int key = 0; key < 12; key++) {
-				zobristKeys[key][position] = rand.nextLong();
-			}
-		}
+        historySize = 0;
+        moveGeneration = new MoveGeneration(this);
 
         // Determines whether it is white's or black's turn to move
         if (fields[1].compareTo("w") == 0) {
@@ -176,49 +182,66 @@ public class Board {
 			}
 		}
 
-        int[] materialWeight = {10000, 1000, 500, 350, 300, 100};
         for (int i = 0; i < 12; i++) {
-            int colorModifier = i < 6 ? 1 : -1;
-            
-            currentEval += colorModifier * (Long.bitCount(bitboards[i]) * materialWeight[i % 6]);
+            for (long pieces = bitboards[i]; pieces != 0; pieces &= pieces - 1) {
+                int position = Long.numberOfTrailingZeros(pieces);
+                midgameScore += PieceSquareTables.midgameValue(i, position);
+                endgameScore += PieceSquareTables.endgameValue(i, position);
+                phase += PieceSquareTables.phaseWeight(i);
+            }
         }
+
+        zobristHash = computeZobristHash();
 	}
 
-    // Makes a move, saving the current state and updating the board state accordingly
+    // Creates a copy of another board's current position with its own move generator and an empty history
+    // This lets separate threads search the same position without sharing any mutable state
+    public Board(Board other) {
+        pieceCount = other.pieceCount;
+        bitboards = Arrays.copyOf(other.bitboards, 12);
+        firstMoves = other.firstMoves;
+        enPassant = other.enPassant;
+        whiteToMove = other.whiteToMove;
+        midgameScore = other.midgameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+        zobristHash = other.zobristHash;
+        historySize = 0;
+        moveGeneration = new MoveGeneration(this);
+    }
+
+    // Makes a move encoded as described in Move, saving the current state and updating the board state accordingly
     // Assumes the move is legal
-    public void makeMove(int origin, int target, char promotion) {
-        boardHistory.add(new BoardState(this));
-        
-        int pieceBitboard = 0; // Determines which bitboard this piece belongs to
-        int capturedBitboard = 0;
+    public void makeMove(int move) {
+        saveUndoRecord(move);
+
+        int origin = Move.origin(move);
+        int target = Move.target(move);
+        int pieceBitboard = Move.piece(move); // Determines which bitboard this piece belongs to
+        int capturedBitboard = Move.captured(move);
+        int promotion = Move.promotion(move);
+        int flags = Move.flags(move);
         long piecePosition = 1L << origin;
         long targetPosition = 1L << target;
-        long occupied = 0L; // Create a bitboard for occupied tiles
-
-        for (int i = 0; i < 12; i++) {
-            occupied |= bitboards[i];
 
-            if ((bitboards[i] & piecePosition) != 0) {
-                pieceBitboard = i;
-            }
-        }
+        boolean isCapture = capturedBitboard != Move.NO_PIECE;
+        boolean isEnPassant = (flags & Move.EN_PASSANT) != 0;
+        boolean pawnMovingTwoSpaces = (flags & Move.DOUBLE_PAWN_PUSH) != 0;
+        boolean isCastling = (flags & Move.CASTLING) != 0;
+        boolean promoting = promotion != Move.NO_PIECE;
 
-        long capturedPosition = targetPosition;
-        boolean movingToOccupiedSquare = (targetPosition & occupied) != 0; 
-        boolean isPawn = ((bitboards[5] | bitboards[11]) & piecePosition) != 0;
-        boolean isEnPassant = isPawn && (origin % 8 != target % 8) && !movingToOccupiedSquare;
         // Adjust captured position if capturing via en passant
+        long capturedPosition = targetPosition;
         if (isEnPassant) {
-            capturedPosition = targetPosition << 8 | targetPosition >>> 8;
+            capturedPosition = whiteToMove ? targetPosition >>> 8 : targetPosition << 8;
         }
-        
-        boolean pawnMovingTwoSpaces = isPawn && Math.abs(target - origin) == 16;
-        boolean isCastling = ((bitboards[0] | bitboards[6]) & piecePosition) != 0 && Math.abs(target - origin) == 2;
-        boolean promoting = promotion != 'x';
+
+        // Remove the castling rights and en passant tile from the hash, since the move may change them
+        zobristHash ^= Zobrist.castlingKey(Zobrist.castlingRights(firstMoves)) ^ Zobrist.enPassantKey(enPassant, bitboards, whiteToMove);
 
         // Decrement piece if a piece is being captured
         firstMoves &= ~(targetPosition | piecePosition);
-        if (isEnPassant || movingToOccupiedSquare) {
+        if (isCapture) {
             firstMoves &= ~capturedPosition;
             pieceCount--;
         }
@@ -232,112 +255,182 @@ public class Board {
 
         // Remove moved piece from original position
         bitboards[pieceBitboard] &= ~piecePosition;
+        zobristHash ^= Zobrist.pieceKey(pieceBitboard, origin);
+        midgameScore -= PieceSquareTables.midgameValue(pieceBitboard, origin);
+        endgameScore -= PieceSquareTables.endgameValue(pieceBitboard, origin);
 
         // Remove captured piece
-        int enemyColorOffset = whiteToMove ? 6 : 0;
-        for (int i = 0; i < 6; i++) {
-            if (Long.bitCount(bitboards[i + enemyColorOffset] & capturedPosition) != 0) {
-                capturedBitboard = i;
-                bitboards[i + enemyColorOffset] &= ~capturedPosition;
-            }
+        if (isCapture) {
+            int capturedTile = Long.numberOfTrailingZeros(capturedPosition);
+            bitboards[capturedBitboard] &= ~capturedPosition;
+            zobristHash ^= Zobrist.pieceKey(capturedBitboard, capturedTile);
+            midgameScore -= PieceSquareTables.midgameValue(capturedBitboard, capturedTile);
+            endgameScore -= PieceSquareTables.endgameValue(capturedBitboard, capturedTile);
+            phase -= PieceSquareTables.phaseWeight(capturedBitboard);
         }
 
         // Place piece at new position
-        if (!promoting) {
-            bitboards[pieceBitboard] |= targetPosition;
-        } else {
-            int promotionBitboard = 0;
-            int colorOffset = whiteToMove ? 0 : 6;
-            switch (promotion) {
-                case 'q':
-                    promotionBitboard = 1;
-                    break;
-                case 'r':
-                    promotionBitboard = 2;
-                    break;
-                case 'b':
-                    promotionBitboard = 3;
-                    break;
-                case 'n':
-                    promotionBitboard = 4;
-                    break;
-                default:
-                    promotionBitboard = 1;
-                    break;
-            }
-
-            bitboards[promotionBitboard + colorOffset] |= targetPosition;
+        int placedBitboard = promoting ? promotion : pieceBitboard;
+        bitboards[placedBitboard] |= targetPosition;
+        zobristHash ^= Zobrist.pieceKey(placedBitboard, target);
+        midgameScore += PieceSquareTables.midgameValue(placedBitboard, target);
+        endgameScore += PieceSquareTables.endgameValue(placedBitboard, target);
+        if (promoting) {
+            phase += PieceSquareTables.phaseWeight(promotion);
         }
 
         // If castling, move the respective rook
         if (isCastling) {
             boolean queensideCastle = target > origin;
-            long rookPos;
+            int rookBitboard = whiteToMove ? 2 : 8;
+            int rookOrigin;
+            int rookTarget;
 
             if (whiteToMove && queensideCastle) {
-                rookPos = 1L << 7;
-                bitboards[2] &= ~rookPos; // Remove the rook
-                firstMoves &= ~rookPos; // Count the rook as having moved
-                bitboards[2] |= rookPos >>> 3; // Add the rook
+                rookOrigin = 7;
+                rookTarget = 4;
             } else if (whiteToMove) {
-                rookPos = 1L;
-                bitboards[2] &= ~rookPos; // Remove the rook
-                firstMoves &= ~rookPos; // Count the rook as having moved
-                bitboards[2] |= rookPos << 2; // Add the rook
-            } else if (!whiteToMove && queensideCastle) {
-                rookPos = 1L << 63;
-                bitboards[8] &= ~rookPos; // Remove the rook
-                firstMoves &= ~rookPos; // Count the rook as having moved
-                bitboards[8] |= rookPos >>> 3; // Add the rook
-            } else if (!whiteToMove) {
-                rookPos = 1L << 56;
-                bitboards[8] &= ~rookPos; // Remove the rook
-                firstMoves &= ~rookPos; // Count the rook as having moved
-                bitboards[8] |= rookPos << 2; // Add the rook
+                rookOrigin = 0;
+                rookTarget = 2;
+            } else if (queensideCastle) {
+                rookOrigin = 63;
+                rookTarget = 60;
+            } else {
+                rookOrigin = 56;
+                rookTarget = 58;
             }
+
+            bitboards[rookBitboard] &= ~(1L << rookOrigin); // Remove the rook
+            firstMoves &= ~(1L << rookOrigin); // Count the rook as having moved
+            bitboards[rookBitboard] |= 1L << rookTarget; // Add the rook
+            zobristHash ^= Zobrist.pieceKey(rookBitboard, rookOrigin) ^ Zobrist.pieceKey(rookBitboard, rookTarget);
+            midgameScore += PieceSquareTables.midgameValue(rookBitboard, rookTarget) - PieceSquareTables.midgameValue(rookBitboard, rookOrigin);
+            endgameScore += PieceSquareTables.endgameValue(rookBitboard, rookTarget) - PieceSquareTables.endgameValue(rookBitboard, rookOrigin);
         }
 
-        // Update evaluation
-        int[] materialWeight = {10000, 1000, 500, 350, 300, 100};;
-        int colorModifier = whiteToMove ? 1 : -1;
-        long[] attacks = MoveGeneration.attacks();
-        long[] defended = MoveGeneration.defended();
-        int enemy = whiteToMove ? 1 : 0;
-        int ally = whiteToMove ? 0 : 1;
-        if (isEnPassant || movingToOccupiedSquare) {
-            double pieceValueDifference = Math.pow(pieceBitboard % 6 - capturedBitboard % 6, 2) * 75;
-
-            currentEval += colorModifier * materialWeight[capturedBitboard % 6];
-            // Encourage the capture of valuable pieces with less valuable pieces
-            currentEval += colorModifier * pieceValueDifference;
-
-            // Encourage the capture of undefended pieces
-            if ((~defended[enemy] & capturedPosition) != 0) {
-                currentEval += colorModifier * 500;
-            }
+        whiteToMove = !whiteToMove;
+
+        // Add the new castling rights, en passant tile and side to move to the hash
+        zobristHash ^= Zobrist.castlingKey(Zobrist.castlingRights(firstMoves)) ^ Zobrist.enPassantKey(enPassant, bitboards, whiteToMove) ^ Zobrist.sideKey(whiteToMove) ^ Zobrist.sideKey(!whiteToMove);
+    }
+
+    // Saves the state needed to undo a move, growing the history if a long game has filled it
+    private void saveUndoRecord(int move) {
+        if (historySize == undoMoves.length) {
+            int capacity = historySize * 2;
+            undoMoves = Arrays.copyOf(undoMoves, capacity);
+            undoFirstMoves = Arrays.copyOf(undoFirstMoves, capacity);
+            undoEnPassant = Arrays.copyOf(undoEnPassant, capacity);
+            undoZobristHash = Arrays.copyOf(undoZobristHash, capacity);
+            undoMidgameScore = Arrays.copyOf(undoMidgameScore, capacity);
+            undoEndgameScore = Arrays.copyOf(undoEndgameScore, capacity);
+            undoPhase = Arrays.copyOf(undoPhase, capacity);
         }
 
-        // Encourage the advancement of pawns
-        if (pieceBitboard % 6 == 5) {
-            currentEval += colorModifier * 50;
+        undoMoves[historySize] = move;
+        undoFirstMoves[historySize] = firstMoves;
+        undoEnPassant[historySize] = enPassant;
+        undoZobristHash[historySize] = zobristHash;
+        undoMidgameScore[historySize] = midgameScore;
+        undoEndgameScore[historySize] = endgameScore;
+        undoPhase[historySize] = phase;
+        historySize++;
+    }
+
+    // Undoes the last move, restoring the board to the state before it was made (if a previous move was made)
+    public void undoMove() {
+        if (historySize == 0) {
+            return;
         }
 
-        // Encourage increased mobility
-        currentEval += colorModifier * 5 * Long.bitCount(attacks[whiteToMove ? 0 : 1]);
+        historySize--;
+        int move = undoMoves[historySize];
 
-        // Discourage valuable pieces from moving to attacked or defended territory, unless it is defended by an ally
-        if ((attacks[enemy] & targetPosition) != 0 && (attacks[ally] & targetPosition) == 0) {
-            currentEval -= colorModifier * materialWeight[pieceBitboard % 6] * 2;
+        // A null move only changed the player to move and the en passant tile
+        if (move == Move.NO_MOVE) {
+            whiteToMove = !whiteToMove;
+            restoreUndoRecord();
+            return;
         }
 
+        int origin = Move.origin(move);
+        int target = Move.target(move);
+        int pieceBitboard = Move.piece(move);
+        int capturedBitboard = Move.captured(move);
+        int promotion = Move.promotion(move);
+        int flags = Move.flags(move);
+        long targetPosition = 1L << target;
+
         whiteToMove = !whiteToMove;
-    }
 
-    // Undoes a move, restoring the board to the most recently stored board state
-    public void undoMove() {
-        if (!boardHistory.isEmpty()) {
-            boardHistory.pop().restore(this);
+        // Move the piece back, turning a promoted piece back into a pawn
+        bitboards[promotion != Move.NO_PIECE ? promotion : pieceBitboard] &= ~targetPosition;
+        bitboards[pieceBitboard] |= 1L << origin;
+
+        // Return the captured piece
+        if (capturedBitboard != Move.NO_PIECE) {
+            long capturedPosition = targetPosition;
+            if ((flags & Move.EN_PASSANT) != 0) {
+                capturedPosition = whiteToMove ? targetPosition >>> 8 : targetPosition << 8;
+            }
+
+            bitboards[capturedBitboard] |= capturedPosition;
+            pieceCount++;
         }
+
+        // Move the castled rook back
+        if ((flags & Move.CASTLING) != 0) {
+            boolean queensideCastle = target > origin;
+            int rookBitboard = whiteToMove ? 2 : 8;
+            int rookOrigin;
+            int rookTarget;
+
+            if (whiteToMove && queensideCastle) {
+                rookOrigin = 7;
+                rookTarget = 4;
+            } else if (whiteToMove) {
+                rookOrigin = 0;
+                rookTarget = 2;
+            } else if (queensideCastle) {
+                rookOrigin = 63;
+                rookTarget = 60;
+            } else {
+                rookOrigin = 56;
+                rookTarget = 58;
+            }
+
+            bitboards[rookBitboard] &= ~(1L << rookTarget);
+            bitboards[rookBitboard] |= 1L << rookOrigin;
+        }
+
+        restoreUndoRecord();
+    }
+
+    // Restores the state saved in the undo record at index historySize
+    private void restoreUndoRecord() {
+        firstMoves = undoFirstMoves[historySize];
+        enPassant = undoEnPassant[historySize];
+        zobristHash = undoZobristHash[historySize];
+        midgameScore = undoMidgameScore[historySize];
+        endgameScore = undoEndgameScore[historySize];
+        phase = undoPhase[historySize];
+    }
+
+    // Passes the turn to the other player without moving a piece, used by null-move pruning in the search
+    // The null move is undone with undoMove like any other move
+    public void makeNullMove() {
+        saveUndoRecord(Move.NO_MOVE);
+
+        zobristHash ^= Zobrist.enPassantKey(enPassant, bitboards, whiteToMove);
+        enPassant = 0L;
+        whiteToMove = !whiteToMove;
+        zobristHash ^= Zobrist.sideKey(whiteToMove) ^ Zobrist.sideKey(!whiteToMove);
+    }
+
+    // Returns whether the given player has any pieces other than the king and pawns
+    public boolean hasNonPawnMaterial(boolean white) {
+        int offset = white ? 0 : 6;
+        return (bitboards[offset + 1] | bitboards[offset + 2] | bitboards[offset + 3] | bitboards[offset + 4]) != 0;
     }
 
     // Returns the bitboards for the pieces
@@ -345,6 +438,11 @@ public class Board {
         return bitboards;
     }
 
+    // Returns the move generator for this board
+    public MoveGeneration moveGeneration() {
+        return moveGeneration;
+    }
+
     // Returns the current piece count
     public int pieceCount() {
         return pieceCount;
@@ -355,13 +453,15 @@ public class Board {
         return enPassant;
     }
 
-    // Returns the current piece evaluation
+    // Returns the evaluation of the current position from white's perspective, in centipawns
+    // The midgame and endgame scores are blended by the game phase, so this takes constant time
     public double currentEval() {
-        return currentEval;
+        return PieceSquareTables.taper(midgameScore, endgameScore, phase);
     }
 
     // Removes the ability to capture a pawn via en passant
     public void removeEnPassant() {
+        zobristHash ^= Zobrist.enPassantKey(enPassant, bitboards, whiteToMove);
         enPassant = 0L;
     }
 
@@ -375,35 +475,33 @@ public class Board {
         return whiteToMove;
     }
 
-    // Restores this board to a previous state using the provided values
-    public void restore(int prevCount, long[] prevBitboards, long prevFirstMoves, long prevEnPassant, boolean prevWhiteToMove, double eval) {
-        pieceCount = prevCount;
-        bitboards = prevBitboards;
-        firstMoves = prevFirstMoves;
-        enPassant = prevEnPassant;
-        whiteToMove = prevWhiteToMove;
-        currentEval = eval;
+    // Returns the last move made, or Move.NO_MOVE if there is no move to undo or the last move was a null move
+    public int lastMove() {
+        return historySize == 0 ? Move.NO_MOVE : undoMoves[historySize - 1];
     }
 
-    // Get the board state before the last move
-    public BoardState getLastBoardState() {
-        return boardHistory.peek();
+    // Returns the zobrist hash for this board state
+    // The hash is updated incrementally as moves are made and undone, so this takes constant time
+    public long zobristHash() {
+        return zobristHash;
     }
 
-    // Calculates the zobrist hash for this board state
-    public long zobristHash() {
+    // Calculates the zobrist hash for this board state from scratch
+    // Only needed when a board is created, but public so that the incremental hash can be checked and timed against it
+    public long computeZobristHash() {
         long hashCode = 0L;
 
         // Iterate over each bitboard
         for (int key = 0; key < 12; key++) {
-            long currBitboard = bitboards[key];
-            ArrayList<Integer> bitPositions = MoveGeneration.bitboardToBitPositions(currBitboard);
-
-            for (Integer bitPosition : bitPositions) {
-                hashCode ^= zobristKeys[key][bitPosition];
+            for (long pieces = bitboards[key]; pieces != 0; pieces &= pieces - 1) {
+                hashCode ^= Zobrist.pieceKey(key, Long.numberOfTrailingZeros(pieces));
             }
         }
 
+        hashCode ^= Zobrist.castlingKey(Zobrist.castlingRights(firstMoves));
+        hashCode ^= Zobrist.enPassantKey(enPassant, bitboards, whiteToMove);
+        hashCode ^= Zobrist.sideKey(whiteToMove);
+
         return hashCode;
     }
 
@@ -0,0 +1,74 @@
+package boardcomponents;
+
+public class Move {
+
+    // A move is packed into a single 32-bit int so that move generation and search never have to build or parse strings
+    // Bits 0-5 hold the origin, bits 6-11 the target, bits 12-15 the moving piece, bits 16-19 the captured piece,
+    // bits 20-23 the promotion piece and bits 24-27 the move flags
+    // Pieces are stored as bitboard indices in the order K, Q, R, B, N, P, k, q, r, b, n, p
+
+    public static final int NO_MOVE = 0; // Never a legal move, since the origin and target would be the same tile
+    public static final int NO_PIECE = 12; // Stored in the captured and promotion fields when they are unused
+
+    // Move flags
+    public static final int EN_PASSANT = 1;
+    public static final int CASTLING = 2;
+    public static final int DOUBLE_PAWN_PUSH = 4;
+
+    private static final String pieceCharacters = "kqrbnp"; // Lowercase piece characters, indexed by bitboard index % 6
+
+    // Packs the given move information into an int
+    public static int encode(int origin, int target, int piece, int captured, int promotion, int flags) {
+        return origin | target << 6 | piece << 12 | captured << 16 | promotion << 20 | flags << 24;
+    }
+
+    // Returns the bit position the piece moves from
+    public static int origin(int move) {
+        return move & 0x3F;
+    }
+
+    // Returns the bit position the piece moves to
+    public static int target(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    // Returns the bitboard index of the moving piece
+    public static int piece(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    // Returns the bitboard index of the captured piece, or NO_PIECE if nothing is captured
+    public static int captured(int move) {
+        return (move >>> 16) & 0xF;
+    }
+
+    // Returns the bitboard index of the piece being promoted to, or NO_PIECE if the move is not a promotion
+    public static int promotion(int move) {
+        return (move >>> 20) & 0xF;
+    }
+
+    // Returns the flags of the move
+    public static int flags(int move) {
+        return (move >>> 24) & 0xF;
+    }
+
+    // Returns whether the move captures a piece
+    public static boolean isCapture(int move) {
+        return captured(move) != NO_PIECE;
+    }
+
+    // Returns whether the move promotes a pawn
+    public static boolean isPromotion(int move) {
+        return promotion(move) != NO_PIECE;
+    }
+
+    // Converts a move to simple algebraic notation, such as "e2e4" or "e7e8q"
+    public static String toAlgebraic(int move) {
+        String result = Board.toAlgebraicNotation(origin(move)) + Board.toAlgebraicNotation(target(move));
+        if (isPromotion(move)) {
+            result += pieceCharacters.charAt(promotion(move) % 6);
+        }
+
+        return result;
+    }
+}
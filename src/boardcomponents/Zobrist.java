@@ -0,0 +1,101 @@
+package boardcomponents;
+
+import java.util.Random;
+
+import game.AttackTables;
+
+public class Zobrist {
+
+    // Zobrist keys shared by every board, so that hashes can be compared between boards, games and runs
+    // The 781 keys are laid out like Polyglot's: 768 piece keys, 4 castling keys, 8 en passant keys and 1 side to move key
+    // They are drawn from a fixed seed, so the same position always has the same hash
+    // Credit to the Chess Programming Wiki for information on zobrist hashing
+
+    private static final long seed = 0x5A0B1257L; // Seed used to generate the keys
+
+    // The order for the piece keys is K, Q, R, B, N, P, k, q, r, b, n, p, where uppercase represents the key for a white piece and vice versa
+    private static final long[][] pieceKeys = new long[12][64];
+    private static final long[] castlingKeys = new long[4]; // Keys for white kingside, white queenside, black kingside and black queenside castling
+    private static final long[] castlingHashes = new long[16]; // The combined castling keys for every set of castling rights
+    private static final long[] enPassantKeys = new long[8]; // Keys for the column of the en passant tile
+    private static final long blackToMoveKey; // Key added when it is black's turn to move
+
+    // Castling rights, used as bits of a castling rights mask
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    static {
+        Random rand = new Random(seed);
+
+        for (int key = 0; key < 12; key++) {
+            for (int position = 0; position < 64; position++) {
+                pieceKeys[key][position] = rand.nextLong();
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            castlingKeys[i] = rand.nextLong();
+        }
+        for (int i = 0; i < 8; i++) {
+            enPassantKeys[i] = rand.nextLong();
+        }
+        blackToMoveKey = rand.nextLong();
+
+        for (int rights = 0; rights < 16; rights++) {
+            for (int i = 0; i < 4; i++) {
+                if ((rights & (1 << i)) != 0) {
+                    castlingHashes[rights] ^= castlingKeys[i];
+                }
+            }
+        }
+    }
+
+    // Returns the key for a piece bitboard at a bit position
+    public static long pieceKey(int bitboard, int position) {
+        return pieceKeys[bitboard][position];
+    }
+
+    // Returns the combined key for a castling rights mask
+    public static long castlingKey(int castlingRights) {
+        return castlingHashes[castlingRights];
+    }
+
+    // Returns the key for the side to move
+    public static long sideKey(boolean whiteToMove) {
+        return whiteToMove ? 0L : blackToMoveKey;
+    }
+
+    // Returns the key for an en passant tile
+    // Like Polyglot, the tile is only hashed if a pawn of the player to move is next to it and could capture there
+    public static long enPassantKey(long enPassant, long[] bitboards, boolean whiteToMove) {
+        if (enPassant == 0) {
+            return 0L;
+        }
+
+        int position = Long.numberOfTrailingZeros(enPassant);
+        long capturingPawns = whiteToMove ? bitboards[5] : bitboards[11];
+        // The pawns that could capture are the ones a pawn of the other color on the en passant tile would attack
+        if ((AttackTables.pawnAttacks(!whiteToMove, position) & capturingPawns) == 0) {
+            return 0L;
+        }
+
+        return enPassantKeys[position % 8];
+    }
+
+    // Returns the castling rights mask implied by which kings and rooks have not moved
+    public static int castlingRights(long firstMoves) {
+        int rights = 0;
+
+        if ((firstMoves & 0x8L) != 0) {
+            rights |= (firstMoves & 0x1L) != 0 ? WHITE_KINGSIDE : 0;
+            rights |= (firstMoves & 0x80L) != 0 ? WHITE_QUEENSIDE : 0;
+        }
+        if ((firstMoves & 0x0800000000000000L) != 0) {
+            rights |= (firstMoves & 0x0100000000000000L) != 0 ? BLACK_KINGSIDE : 0;
+            rights |= (firstMoves & 0x8000000000000000L) != 0 ? BLACK_QUEENSIDE : 0;
+        }
+
+        return rights;
+    }
+}
@@ -0,0 +1,252 @@
+package game;
+
+public class AttackTables {
+
+    // Precomputed attack tables, so that move generation only needs to look attacks up
+    // Sliding piece attacks are looked up with magic bitboards
+    // For each tile, the occupied tiles that can block a slider (its relevant mask) are multiplied by a magic number,
+    // and the top bits of the product index a table of precomputed attacks for that arrangement of blockers
+    // The attack tables are filled in when the class loads
+    // The magic numbers were found with a random search for sparse numbers that produce no harmful collisions for this bit layout
+    // Credit to the Chess Programming Wiki for information on magic bitboards
+
+    private static final long[] rookMasks = new long[64]; // Tiles that can block a rook on each tile, excluding the board edges
+    private static final long[] rookMagics = { // Magic numbers for rooks
+        0x1480034000A08018L, 0x5040001000402000L, 0x99000A6000D10041L, 0x528008001001C480L,
+        0x0100100801000402L, 0x8100040002010008L, 0x0380008019000200L, 0x0100020020408100L,
+        0x4021800080400020L, 0x0000802000400082L, 0x8000802000100088L, 0x8000801000080080L,
+        0x0000800400080080L, 0x0222802200800400L, 0x8001000401000200L, 0x000200020040A904L,
+        0x0080004020004008L, 0x0100860040210201L, 0x00304A0010220081L, 0x0441210010030108L,
+        0x1028010005001008L, 0x0040808004000200L, 0x0444040090024801L, 0x094402002C004287L,
+        0x000385248000400AL, 0x8000820200402102L, 0x4017011100402006L, 0x2000201200420008L,
+        0x2000080080800400L, 0x0822000200081004L, 0x0000480400020190L, 0x0200008200010044L,
+        0x1024400022800081L, 0x0660003000C00040L, 0x0008820022001040L, 0x2412100009002100L,
+        0x0428040801001101L, 0x0004020080800400L, 0xCD800E080C002910L, 0x0009000081000042L,
+        0x088000402000C000L, 0x0044600550054002L, 0x0200100020008080L, 0x8010008008008010L,
+        0x00820004208A0010L, 0x0201000804010002L, 0x04020008210200C4L, 0x4010004100820004L,
+        0x2402008038410200L, 0x0082804001200680L, 0x00801A0020408200L, 0x0004201001040900L,
+        0x0540800800040080L, 0x0C02008408108200L, 0x0808D00831020400L, 0x0428800049001880L,
+        0x8001004084221202L, 0x0404400421001085L, 0x0C0408A042021082L, 0x2008050008100021L,
+        0x0101000208001005L, 0x000100080400822DL, 0x0033211098100204L, 0x8004042104004882L
+    };
+    private static final int[] rookShifts = new int[64]; // How far the product is shifted to form the index for rooks
+    private static final int[] rookOffsets = new int[64]; // Where each tile's rook attacks begin in rookAttackTable
+    private static final long[] rookAttackTable; // Rook attacks for every tile and arrangement of blockers
+
+    private static final long[] bishopMasks = new long[64]; // Tiles that can block a bishop on each tile, excluding the board edges
+    private static final long[] bishopMagics = { // Magic numbers for bishops
+        0x4082223408120040L, 0x1104A11222020008L, 0x0184980281040239L, 0x44420A1200440982L,
+        0x0001104100000000L, 0x40022A2020000000L, 0x2084022202204000L, 0x3089004202206240L,
+        0x2A04202102221D40L, 0x4001048408004100L, 0x04281000A0810000L, 0x0428944100200004L,
+        0x0601040420000000L, 0x0600220250052000L, 0x3000008410284400L, 0x0000005108080210L,
+        0x0010000420020440L, 0x0008991001050C21L, 0x9010000808911010L, 0x0008020082004002L,
+        0x09C1008820080401L, 0x8401408208200400L, 0x8004030104014500L, 0x8100842202008220L,
+        0x002240000808D800L, 0x1002627030044802L, 0x0088022004040010L, 0x2210040000401020L,
+        0x9014040004C10040L, 0x610A020100880504L, 0x000401010C012121L, 0x13022A0200808082L,
+        0x5510080442200442L, 0x000208A084040900L, 0x2022002400020808L, 0xC800A20180080080L,
+        0x102004030003A008L, 0x1020180020004403L, 0x0024041088084803L, 0x0000940840110100L,
+        0x0225082016015000L, 0x0A82621210212008L, 0x00400C0404008200L, 0x0001504010400201L,
+        0x000004010C000200L, 0x1004010861001A00L, 0x00A00C040AA04040L, 0x0001070202020294L,
+        0xC144040404864000L, 0x0401004202202280L, 0x0900116D08084000L, 0x0010480020880000L,
+        0x0008000410440080L, 0x0050401016509000L, 0x0020029002008002L, 0xC0A0220202002940L,
+        0xA013002802021002L, 0x1040030409010804L, 0x002040242108080CL, 0x40020A010020A802L,
+        0x0098800460820480L, 0x0086002144040820L, 0x5000061084010408L, 0x0108310808014082L
+    };
+    private static final int[] bishopShifts = new int[64]; // How far the product is shifted to form the index for bishops
+    private static final int[] bishopOffsets = new int[64]; // Where each tile's bishop attacks begin in bishopAttackTable
+    private static final long[] bishopAttackTable; // Bishop attacks for every tile and arrangement of blockers
+
+    // Attacks for pieces that do not slide, indexed by bit position
+    private static final long[] knightAttacks = new long[64];
+    private static final long[] kingAttacks = new long[64];
+    private static final long[][] pawnAttacks = new long[2][64]; // White pawn attacks followed by black pawn attacks
+
+    // Rays leaving each tile in every sliding direction, in the order up, down, top right, bottom left, top left, bottom right, right, left
+    // The extra entry at index 64 holds empty rays, used when a king is not on the board
+    private static final long[][] directionalMasks = new long[65][8];
+    private static final long[][] between = new long[64][64]; // Tiles strictly between two tiles that share a row, column or diagonal
+    private static final long[][] line = new long[64][64]; // The full row, column or diagonal through two tiles that share one
+
+    // Row and column steps for each sliding direction
+    private static final int[][] rookDirections = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] bishopDirections = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] rayDirections = {{1, 0}, {-1, 0}, {1, -1}, {-1, 1}, {1, 1}, {-1, -1}, {0, 1}, {0, -1}}; // Opposite directions are adjacent
+
+    // Row and column steps for pieces that do not slide
+    private static final int[][] knightSteps = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] whitePawnSteps = {{1, 1}, {1, -1}};
+    private static final int[][] blackPawnSteps = {{-1, 1}, {-1, -1}};
+
+    static {
+        rookAttackTable = new long[initializeMasks(rookDirections, rookMasks, rookShifts, rookOffsets)];
+        fillAttackTable(rookDirections, rookMasks, rookMagics, rookShifts, rookOffsets, rookAttackTable);
+        bishopAttackTable = new long[initializeMasks(bishopDirections, bishopMasks, bishopShifts, bishopOffsets)];
+        fillAttackTable(bishopDirections, bishopMasks, bishopMagics, bishopShifts, bishopOffsets, bishopAttackTable);
+
+        for (int bitPosition = 0; bitPosition < 64; bitPosition++) {
+            knightAttacks[bitPosition] = stepAttacks(bitPosition, knightSteps);
+            kingAttacks[bitPosition] = stepAttacks(bitPosition, rayDirections);
+            pawnAttacks[0][bitPosition] = stepAttacks(bitPosition, whitePawnSteps);
+            pawnAttacks[1][bitPosition] = stepAttacks(bitPosition, blackPawnSteps);
+
+            for (int direction = 0; direction < 8; direction++) {
+                directionalMasks[bitPosition][direction] = slidingAttacks(bitPosition, 0L, new int[][] {rayDirections[direction]});
+            }
+        }
+
+        // Tiles between two aligned tiles are where the ray from one tile overlaps the opposite ray from the other
+        for (int from = 0; from < 64; from++) {
+            for (int direction = 0; direction < 8; direction++) {
+                long ray = directionalMasks[from][direction];
+                long fullLine = ray | directionalMasks[from][direction ^ 1] | 1L << from;
+                
+                long tiles = ray;
+                while (tiles != 0) {
+                    int to = Long.numberOfTrailingZeros(tiles);
+                    tiles &= tiles - 1;
+                    between[from][to] = ray & directionalMasks[to][direction ^ 1];
+                    line[from][to] = fullLine;
+                }
+            }
+        }
+    }
+
+    // Returns the tiles attacked by a rook at the given bit position
+    public static long rookAttacks(int bitPosition, long occupied) {
+        int index = (int)(((occupied & rookMasks[bitPosition]) * rookMagics[bitPosition]) >>> rookShifts[bitPosition]);
+        return rookAttackTable[rookOffsets[bitPosition] + index];
+    }
+
+    // Returns the tiles attacked by a bishop at the given bit position
+    public static long bishopAttacks(int bitPosition, long occupied) {
+        int index = (int)(((occupied & bishopMasks[bitPosition]) * bishopMagics[bitPosition]) >>> bishopShifts[bitPosition]);
+        return bishopAttackTable[bishopOffsets[bitPosition] + index];
+    }
+
+    // Returns the tiles attacked by a queen at the given bit position
+    public static long queenAttacks(int bitPosition, long occupied) {
+        return rookAttacks(bitPosition, occupied) | bishopAttacks(bitPosition, occupied);
+    }
+
+    // Returns the tiles attacked by a knight at the given bit position
+    public static long knightAttacks(int bitPosition) {
+        return knightAttacks[bitPosition];
+    }
+
+    // Returns the tiles attacked by a king at the given bit position
+    public static long kingAttacks(int bitPosition) {
+        return kingAttacks[bitPosition];
+    }
+
+    // Returns the tiles attacked by a pawn of the given color at the given bit position
+    public static long pawnAttacks(boolean whitePawn, int bitPosition) {
+        return pawnAttacks[whitePawn ? 0 : 1][bitPosition];
+    }
+
+    // Returns the rays leaving a bit position in each sliding direction
+    // The returned array is shared, so it must not be modified
+    public static long[] directionalMasks(int bitPosition) {
+        return directionalMasks[bitPosition];
+    }
+
+    // Returns the tiles strictly between two bit positions, or 0 if they do not share a row, column or diagonal
+    public static long between(int from, int to) {
+        return between[from][to];
+    }
+
+    // Returns the row, column or diagonal through two bit positions, or 0 if they do not share one
+    public static long line(int from, int to) {
+        return line[from][to];
+    }
+
+    // Computes the masks, shifts and offsets for one type of slider
+    // Returns the size of the attack table needed by this slider
+    private static int initializeMasks(int[][] directions, long[] masks, int[] shifts, int[] offsets) {
+        int offset = 0;
+
+        for (int bitPosition = 0; bitPosition < 64; bitPosition++) {
+            long mask = relevantMask(bitPosition, directions);
+            masks[bitPosition] = mask;
+            shifts[bitPosition] = 64 - Long.bitCount(mask);
+            offsets[bitPosition] = offset;
+            offset += 1 << Long.bitCount(mask);
+        }
+
+        return offset;
+    }
+
+    // Fills in the attack table for every tile and every arrangement of blockers on that tile's mask
+    private static void fillAttackTable(int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets, long[] attackTable) {
+        for (int bitPosition = 0; bitPosition < 64; bitPosition++) {
+            long mask = masks[bitPosition];
+
+            // Enumerate every subset of the mask using the carry-rippler trick
+            long blockers = 0L;
+            do {
+                int index = (int)((blockers * magics[bitPosition]) >>> shifts[bitPosition]);
+                attackTable[offsets[bitPosition] + index] = slidingAttacks(bitPosition, blockers, directions);
+                blockers = (blockers - mask) & mask;
+            } while (blockers != 0);
+        }
+    }
+
+    // Returns the tiles that can block a slider on this tile, which excludes the last tile in each direction
+    private static long relevantMask(int bitPosition, int[][] directions) {
+        long mask = 0L;
+
+        for (int[] direction : directions) {
+            int row = bitPosition / 8 + direction[0];
+            int col = bitPosition % 8 + direction[1];
+            while (onBoard(row + direction[0], col + direction[1])) {
+                mask |= 1L << (row * 8 + col);
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+
+        return mask;
+    }
+
+    // Computes slider attacks by walking each direction until a blocker or the board edge is reached
+    // This is slow and only used to fill in the attack tables
+    private static long slidingAttacks(int bitPosition, long occupied, int[][] directions) {
+        long attacks = 0L;
+
+        for (int[] direction : directions) {
+            int row = bitPosition / 8 + direction[0];
+            int col = bitPosition % 8 + direction[1];
+            while (onBoard(row, col)) {
+                long tile = 1L << (row * 8 + col);
+                attacks |= tile;
+                if ((occupied & tile) != 0) {
+                    break;
+                }
+
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+
+        return attacks;
+    }
+
+    // Computes the attacks of a piece that moves by fixed steps
+    private static long stepAttacks(int bitPosition, int[][] steps) {
+        long attacks = 0L;
+
+        for (int[] step : steps) {
+            int row = bitPosition / 8 + step[0];
+            int col = bitPosition % 8 + step[1];
+            if (onBoard(row, col)) {
+                attacks |= 1L << (row * 8 + col);
+            }
+        }
+
+        return attacks;
+    }
+
+    // Returns whether a row and column are on the board
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+}
@@ -2,15 +2,17 @@ package game;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import boardcomponents.Board;
+import boardcomponents.Move;
 
 public class Game {
     
     private Board board; // The board for the game
+    private MoveGeneration moveGeneration; // The move generator for the board
     private boolean whiteToPlay; // Determines whether it is white's turn to play
     private boolean whiteAI; // Determines the color of the AI
     private int fullmoveCount; // The number of completed turns in the game
@@ -47,21 +49,28 @@ public class Game {
                                                     {"g8f6", "f6d5", "d7d6", "g7g6"},
                                                     {"c7c5", "e7e6", "f7f5", "g8h6"}};
 
-	private String bestMove; // The move currently considered the best by the search algorithm
-	private String bestMoveAfterSearch; // The move considered the best after a complete search at a specified depth
-	private int currentDepth; // The depth that the search algorithm is currently searching
-	private final static long timeLimit = 2000; // We limit the search to 2s
-	private long searchStartTime; // The time the current search began
-	private boolean timeout; // Determines whether the search should be halted
+	private long moveTime = 2000; // How long the AI searches for each move in milliseconds, 2s by default
+	private int numThreads = 1; // The number of threads that search at once
+	private Search[] searches = new Search[0]; // One search worker per thread, the first being the main worker
+	private SearchOptions searchOptions = new SearchOptions(); // The pruning and reduction techniques used by the search
+	private IntMoveList[] moveLists = new IntMoveList[64]; // Move lists reused at each ply, so that searching does not allocate new lists
+	private SearchHandle currentSearch; // The most recently started search, which may still be running
+	// Runs the main worker of each search, so that searches do not block the caller
+	private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "search-main");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 
     // Creates a game using the default setup and allows the user to select their color
 	public Game(boolean playAsWhite) {
 		board = new Board("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0");
+		moveGeneration = board.moveGeneration();
         whiteToPlay = true;
 		fullmoveCount = 0;
         whiteAI = !playAsWhite;
-		transTable = new TranspositionTable();
+		transTable = TranspositionTable.create(TranspositionTable.DEFAULT_SIZE_MB);
 	}
 
     // Creates a game based on a starting FEN string.
@@ -70,9 +79,10 @@ public class Game {
 
 		whiteToPlay = fenFields[1].compareTo("w") == 0;
 		board = new Board(fen);
+		moveGeneration = board.moveGeneration();
         whiteAI = !playAsWhite;
 		fullmoveCount = Integer.parseInt(fenFields[5]);
-		transTable = new TranspositionTable();
+		transTable = TranspositionTable.create(TranspositionTable.DEFAULT_SIZE_MB);
 	}
 
     // Resets the game, allowing the user to select a new fen string
@@ -81,9 +91,49 @@ public class Game {
 
 		whiteToPlay = fenFields[1].compareTo("w") == 0;
 		board = new Board(fen);
+		moveGeneration = board.moveGeneration();
 		fullmoveCount = Integer.parseInt(fenFields[5]);
 	}
 
+    // Replaces the transposition table with an empty one of the given size in megabytes
+    // Returns the size of the new table, which is smaller if there was not enough memory
+    public int setHashSize(int sizeMB) {
+        transTable = null; // Let the old table be collected before the new one is allocated
+        searches = new Search[0];
+        transTable = TranspositionTable.create(sizeMB);
+        return transTable.sizeMB();
+    }
+
+    // Sets how long the AI searches for each move, in milliseconds
+    public void setMoveTime(long moveTimeMillis) {
+        moveTime = moveTimeMillis;
+    }
+
+    // Sets the number of threads used to search for the AI's moves
+    public void setThreads(int threads) {
+        numThreads = Math.max(1, threads);
+    }
+
+    // Empties the transposition table, so that a new game does not use results from the previous one
+    public void clearHash() {
+        transTable.clear();
+    }
+
+    // Returns whether it is white's turn to play
+    public boolean whiteToPlay() {
+        return whiteToPlay;
+    }
+
+    // Returns the combined statistics of all workers for the most recent search
+    public SearchStatistics searchStatistics() {
+        return currentSearch != null ? currentSearch.statistics() : new SearchStatistics();
+    }
+
+    // Returns the options used by the search, which may be changed between searches
+    public SearchOptions searchOptions() {
+        return searchOptions;
+    }
+
     // Return the board
     public Board getBoard() {
         return board;
@@ -101,33 +151,46 @@ public class Game {
             return false;
         }
 
-        HashSet<String> legalMoves = MoveGeneration.legalMoves(board);
-        if (legalMoves.contains(move) && !MoveGeneration.capturesKing(move)) {
-            char promotion = 'x';
-            if (move.length() == 5) {
-                promotion = move.charAt(4);
+        IntMoveList legalMoves = moveList(0);
+        legalMoves.clear();
+        moveGeneration.generateMoves(legalMoves);
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int legalMove = legalMoves.get(i);
+            if (Move.toAlgebraic(legalMove).compareTo(move) == 0 && !MoveGeneration.capturesKing(legalMove)) {
+                makeMove(legalMove);
+                return true;
             }
+        }
 
-            int origin = Board.toNumericNotation(move.substring(0, 2));
-            int target = Board.toNumericNotation(move.substring(2, 4));
-            board.makeMove(origin, target, promotion);
+        return false;
+    }
 
-            if (!whiteToPlay) {
-                fullmoveCount++;
-            }
+    // Makes a legal move, encoded as described in Move, for the player whose turn it currently is
+    public void makeMove(int move) {
+        board.makeMove(move);
 
-            whiteToPlay = !whiteToPlay;
+        if (!whiteToPlay) {
+            fullmoveCount++;
+        }
+
+        whiteToPlay = !whiteToPlay;
+    }
 
-            return true;
+    // Returns the move list for the given ply, creating it if it has not been used before
+    private IntMoveList moveList(int ply) {
+        if (ply >= moveLists.length) {
+            moveLists = Arrays.copyOf(moveLists, ply * 2);
+        }
+        if (moveLists[ply] == null) {
+            moveLists[ply] = new IntMoveList();
         }
 
-        return false;
+        return moveLists[ply];
     }
 
     // Has the AI make a move
 	// Returns the move
 	public String aiMove() {
-		bestMoveAfterSearch = null;
 		if (whiteToPlay && !whiteAI) {
             return "";
         }
@@ -146,12 +209,14 @@ public class Game {
 			move = opening[fullmoveCount];
 			if (!makeMove(move)) {
 				selectedAIOpening = -1;
-				move = bestMove();
-				makeMove(move);
+				int searchedMove = bestMove();
+				makeMove(searchedMove);
+				move = Move.toAlgebraic(searchedMove);
 			}
 		} else { // Simply choose the best move via minimax
-			move = bestMove();
-			makeMove(move);
+			int searchedMove = bestMove();
+			makeMove(searchedMove);
+			move = Move.toAlgebraic(searchedMove);
 		}
 
 		return move;
@@ -159,7 +224,10 @@ public class Game {
 
 	// Returns whether the current player has been checkmated
 	public boolean checkmate(boolean whitePlayer) {
-		return MoveGeneration.legalMoves(board).size() == 0;
+		IntMoveList moves = moveList(0);
+		moves.clear();
+		moveGeneration.generateMoves(moves);
+		return moves.isEmpty();
 	}
 
     // Given a depth of n ply, this will return the number of possible board states to verify the algorithm
@@ -171,14 +239,17 @@ public class Game {
 		
         // Iterate over each move
         int numPositions = 0;
-		ArrayList<String> moves = MoveGeneration.generateMoves(board);
-        Iterator<String> moveItr = moves.iterator();
-        while (moveItr.hasNext()) {
-            String move = moveItr.next();
-            if (makeMove(move)) {
-                numPositions += moveGenerationTest(depth - 1);
-                undoMove();
-            }
+		IntMoveList moves = moveList(depth);
+		moves.clear();
+		moveGeneration.generateMoves(moves);
+		// Moves are legal, so the positions one move away can be counted without making the moves
+		if (depth == 1) {
+			return moves.size();
+		}
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            numPositions += moveGenerationTest(depth - 1);
+            board.undoMove();
         }
 		
 		return numPositions;
@@ -188,23 +259,21 @@ public class Game {
 	public int moveGenerationDiagnostics(int depth) {
 		// depth must be 1 or greater
 		if (depth >= 1) {
-			ArrayList<String> moves = MoveGeneration.generateMoves(board);
-            Iterator<String> moveItr = moves.iterator();
+			IntMoveList moves = moveList(depth);
+			moves.clear();
+			moveGeneration.generateMoves(moves);
 			int total = 0;
 
 			// Iterate over each move
-            while (moveItr.hasNext()) {
-                String move = moveItr.next();
-                if (makeMove(move)) {
-                    // Test each of the first moves
-                    int numAdded = moveGenerationTest(depth - 1);
-                    total += numAdded;
-
-                    System.out.println(move + ": " + numAdded);
-                    undoMove();
-                } else {
-                    System.out.println(move + ": Illegal");
-                }
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                board.makeMove(move);
+                // Test each of the first moves
+                int numAdded = moveGenerationTest(depth - 1);
+                total += numAdded;
+
+                System.out.println(Move.toAlgebraic(move) + ": " + numAdded);
+                board.undoMove();
             }
 
 			return total;
@@ -227,15 +296,21 @@ public class Game {
 		int[] expectedNumPositions = {1063513, 1134888, 1015133, 1166463, 1440467, 661072, 803711, 1274206, 1720476, 3821001, 1004658, 217342, 92683, 2217, 567584, 23527, 230090, 1817527, 1278243, 400719, 3894594, 2103487,
 									  422333, 674624, 4865609};
 		int numTests = fen.length;
+		Perft perft = new Perft();
+		long totalPositions = 0;
+		long totalTime = 0;
 
 		for (int test = 0; test < numTests; test++) {
 			reset(fen[test], true);
-			long startTime = System.nanoTime();
-			int observedNumPositions = moveGenerationTest(ply[test]);
-			long endTime = System.nanoTime();
+			long observedNumPositions = perft.run(board, ply[test]);
+			totalPositions += observedNumPositions;
+			totalTime += perft.elapsedMillis();
 			String testOutcome = observedNumPositions == expectedNumPositions[test] ? "Passed" : "Failed";
-			System.out.println("Test " + test + ": Observed Number of Positions: " + observedNumPositions + " Time: " + (endTime - startTime) / 1000000 + " ms Test Outcome: " + testOutcome + " Discrepancy: " + Math.abs(expectedNumPositions[test] - observedNumPositions));
+			System.out.println("Test " + test + ": Observed Number of Positions: " + observedNumPositions + " Time: " + perft.elapsedMillis() + " ms Nodes/s: " + perft.nodesPerSecond() + " Test Outcome: " + testOutcome + " Discrepancy: " + Math.abs(expectedNumPositions[test] - observedNumPositions));
 		}
+
+		perft.shutdown();
+		System.out.println("Total: " + totalPositions + " positions in " + totalTime + " ms, " + (totalTime > 0 ? totalPositions * 1000 / totalTime : totalPositions) + " nodes/s");
 	}
 
     // Undoes a move, returning the board to the state before the last move (if a previous move was made)
@@ -250,79 +325,94 @@ public class Game {
 		return board.currentEval() * (whiteToPlay ? 1 : -1);
 	}
 
-	// Searches for the best possible move using the minimax algorithm with alpha-beta pruning
-	public double negamaxSearch(int depth, double alpha, double beta) {
-		// Do not continue searching if the time is up
-		if (System.currentTimeMillis() - searchStartTime > timeLimit && bestMoveAfterSearch != null) {
-			timeout = true;
-			return alpha;
-		}
+	// Finds the best move for the current player, encoded as described in Move, searching for the AI's move time
+	public int bestMove() {
+		return bestMove(TimeManager.fixed(moveTime));
+	}
 
-		// For leaf nodes, evaluate the board position
-		if (depth == 0) {
-			if (transTable.contains(board)) {
-				return transTable.get(board);
-			} else {
-				double eval = board.currentEval();
-				transTable.put(board, eval);
-				return eval;
-			}
-		}
+	// Finds the best move for the current player, encoded as described in Move, searching for as long as the time manager allows
+	// The calling thread waits for the search, which prints its progress
+	public int bestMove(TimeManager timeManager) {
+		SearchListener printer = info -> System.out.println("Completed search at a depth of " + info.depth() + " best move so far "
+				+ Move.toAlgebraic(info.bestMove()) + " pv " + info.principalVariationString());
+		int bestMove = startSearch(timeManager, false, printer).join();
 
-		ArrayList<String> moves = MoveGeneration.generateMoves(board);
-		// There are no moves that can be made
-		if (moves.isEmpty()) {
-			// The player has been checkmated, so return evaluation of negative infinity
-			if (MoveGeneration.inCheck(whiteToPlay)) {
-				return Double.NEGATIVE_INFINITY;
+		System.out.println("Took " + timeManager.elapsedMillis() + " milliseconds");
+		return bestMove;
+	}
+
+	// Starts searching for the best move for the current player in the background, and returns a handle to control the search
+	// The search runs on numThreads threads sharing the transposition table, and later changes to the board do not affect it
+	// When ponder is true, the search ignores the time manager until the handle's ponderHit or stop is called,
+	// and only reports its move after one of them
+	// listener receives the progress of the search after each iteration, and may be null
+	// Any search that is still running is stopped first
+	public SearchHandle startSearch(TimeManager timeManager, boolean ponder, SearchListener listener) {
+		if (currentSearch != null) {
+			currentSearch.stop();
+			try {
+				currentSearch.future().join();
+			} catch (RuntimeException e) {
+				// The previous search failed, which does not stop a new one from starting
 			}
-			// The player has been stalemated, so return evaluation of 0
-			return 0;
 		}
 
-		// Look for best option for this player
-		for (String move : moves) {
-			if (makeMove(move)) {
-				double evaluation;
-				evaluation = -negamaxSearch(depth - 1, -beta, -alpha);
-
-				undoMove();
-				if (evaluation >= beta) {
-					return beta; // The opponent will avoid this position because the move was too good
-				}
-
-				if (evaluation > alpha) {
-					alpha = evaluation;
+		transTable.newSearch();
+		timeManager.start();
+		if (ponder) {
+			timeManager.startPondering();
+		}
 
-					if (depth == currentDepth) {
-						bestMove = move;
-					}
-				}
+		// Keep the workers between searches so that their move lists are reused
+		if (searches.length != numThreads) {
+			searches = new Search[numThreads];
+			for (int i = 0; i < numThreads; i++) {
+				searches[i] = new Search(i, transTable, searchOptions);
 			}
 		}
+		for (Search search : searches) {
+			search.setPosition(board);
+			search.setTeam(searches);
+		}
 
-		return alpha;
-	}
+		Search[] workers = searches;
+		SearchHandle handle = new SearchHandle(workers, timeManager);
+		currentSearch = handle;
+		searchExecutor.execute(() -> {
+			try {
+				handle.complete(runSearch(workers, timeManager, listener));
+			} catch (Throwable e) {
+				handle.fail(e);
+			}
+		});
 
-	// Finds the best move for the current player
-	public String bestMove() {
-		timeout = false;
-		searchStartTime = System.currentTimeMillis();
+		return handle;
+	}
 
-		// Iterative deepening
-		for (currentDepth = 4; ; currentDepth++) {
-			if (currentDepth > 4) {
-				bestMoveAfterSearch = bestMove; // Only update the bestMoveAfterSearch if a previous search completed
-				System.out.println("Completed search at a depth of " + (currentDepth - 1) + " best move so far " + bestMoveAfterSearch);
-			}
+	// Runs a search on the current thread as the main worker, with a thread for each helper
+	private static int runSearch(Search[] workers, TimeManager timeManager, SearchListener listener) throws InterruptedException {
+		// Start the helpers
+		Thread[] helpers = new Thread[workers.length - 1];
+		for (int i = 1; i < workers.length; i++) {
+			Search helper = workers[i];
+			helpers[i - 1] = new Thread(() -> helper.iterativeDeepening(timeManager, null), "search-helper-" + i);
+			helpers[i - 1].setDaemon(true);
+			helpers[i - 1].start();
+		}
 
-			negamaxSearch(currentDepth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+		int bestMove = workers[0].iterativeDeepening(timeManager, listener);
 
-			if (timeout && bestMoveAfterSearch != null) {
-				System.out.println("Took " + (System.currentTimeMillis() - searchStartTime) + " milliseconds");
-				return bestMoveAfterSearch;
-			}
+		// Stop the helpers once the main worker is done
+		for (int i = 1; i < workers.length; i++) {
+			workers[i].stop();
 		}
+		for (Thread helper : helpers) {
+			helper.join();
+		}
+
+		// A search that ends while pondering, such as one that found a forced mate, must wait for the opponent's move
+		timeManager.awaitPonderEnd();
+		return bestMove;
 	}
 
     // Prints the board from white's perspective
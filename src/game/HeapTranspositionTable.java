@@ -0,0 +1,43 @@
+package game;
+
+import java.util.Arrays;
+
+public class HeapTranspositionTable extends TranspositionTable {
+
+    // A transposition table kept in a single long array on the Java heap
+    // Java arrays hold at most about 2^31 elements, so larger sizes are capped at 8 GB
+
+    private static final long maxBuckets = 1L << 28; // The most buckets that fit in one array
+
+    private final long[] table; // The buckets of the table
+
+    public HeapTranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    // Creates a table that uses at most the given number of megabytes
+    public HeapTranspositionTable(int sizeMB) {
+        this(Math.min(bucketsForSize(sizeMB), maxBuckets));
+    }
+
+    private HeapTranspositionTable(long numBuckets) {
+        super(numBuckets);
+        table = new long[(int)numBuckets * longsPerBucket];
+    }
+
+    @Override
+    protected long read(long index) {
+        return table[(int)index];
+    }
+
+    @Override
+    protected void write(long index, long value) {
+        table[(int)index] = value;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(table, 0L);
+        resetAge();
+    }
+}
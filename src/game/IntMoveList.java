@@ -0,0 +1,67 @@
+package game;
+
+import java.util.Arrays;
+
+public class IntMoveList {
+
+    private int[] moves; // The encoded moves, see boardcomponents.Move
+    private int size; // The number of moves currently in the list
+
+    // Creates a list large enough to hold the moves of any legal position
+    public IntMoveList() {
+        this(256);
+    }
+
+    public IntMoveList(int capacity) {
+        moves = new int[capacity];
+        size = 0;
+    }
+
+    // Adds a move to the end of the list
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+
+        moves[size++] = move;
+    }
+
+    // Adds all moves in another list to the end of this list
+    public void addAll(IntMoveList other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.moves[i]);
+        }
+    }
+
+    // Returns the move at the given index
+    public int get(int index) {
+        return moves[index];
+    }
+
+    // Replaces the move at the given index
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    // Swaps the moves at the two indices
+    public void swap(int first, int second) {
+        int temp = moves[first];
+        moves[first] = moves[second];
+        moves[second] = temp;
+    }
+
+    // Returns the number of moves in the list
+    public int size() {
+        return size;
+    }
+
+    // Returns whether the list is empty
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Removes all moves from the list, keeping the underlying array
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,212 @@
+package game;
+
+import boardcomponents.Board;
+import boardcomponents.Move;
+
+public class MovePicker {
+
+    // Hands out the moves of a node one at a time in the order they are most likely to cause a cutoff:
+    // the hash move, captures and promotions by MVV-LVA, the killer moves, the counter move, quiet moves by history,
+    // and finally captures that static exchange evaluation expects to lose material
+    // Moves are selected lazily, so when an early move causes a cutoff the remaining moves are never scored or sorted
+    // The legal moves are generated together, since legality checks need the full attack information anyway
+    // Credit to the Chess Programming Wiki and Stockfish for information on move ordering
+
+    // Stages, in the order moves are handed out
+    private static final int HASH_MOVE = 0;
+    private static final int CAPTURES = 1;
+    private static final int FIRST_KILLER = 2;
+    private static final int SECOND_KILLER = 3;
+    private static final int COUNTER_MOVE = 4;
+    private static final int QUIETS = 5;
+    private static final int BAD_CAPTURES = 6;
+    private static final int DONE = 7;
+
+    private final IntMoveList moves = new IntMoveList(); // The moves of the node, with moves already handed out replaced by Move.NO_MOVE
+    private final IntMoveList badCaptures = new IntMoveList(); // Captures put off until after the quiet moves, in MVV-LVA order
+    private int badCaptureIndex; // The next bad capture to hand out
+    private Board board; // The board the moves were generated for
+    private StaticExchange staticExchange; // Used to find captures that lose material
+    private int[] scores = new int[256]; // The ordering score of each move
+    private int noisyEnd; // Captures and promotions come before this index, quiet moves from it on
+    private int stage; // The current stage
+    private int hashMove; // The move from the transposition table or principal variation
+    private int killer1; // The most recent quiet move that caused a cutoff at this ply
+    private int killer2; // The killer move before killer1
+    private int counterMove; // The quiet move that last refuted the opponent's previous move
+    private int[][] history; // The history scores of the player to move, indexed by origin and target
+
+    // Returns the list that the moves of the node should be generated into before calling start
+    public IntMoveList moves() {
+        return moves;
+    }
+
+    // Prepares to hand out the moves generated for the board
+    // Any of the moves may be Move.NO_MOVE, and moves that are not in the list are skipped
+    public void start(Board board, StaticExchange staticExchange, int hashMove, int killer1, int killer2, int counterMove, int[][] history) {
+        this.board = board;
+        this.staticExchange = staticExchange;
+        this.hashMove = hashMove;
+        this.killer1 = killer1;
+        this.killer2 = killer2;
+        this.counterMove = counterMove;
+        this.history = history;
+        stage = HASH_MOVE;
+        badCaptures.clear();
+        badCaptureIndex = 0;
+
+        if (scores.length < moves.size()) {
+            scores = new int[moves.size()];
+        }
+
+        // Partition captures and promotions before quiet moves, scoring them as they go
+        noisyEnd = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Move.isCapture(move) || Move.isPromotion(move)) {
+                moves.swap(i, noisyEnd);
+                scores[noisyEnd] = mvvLva(move);
+                noisyEnd++;
+            }
+        }
+    }
+
+    // Returns the next move to search, or Move.NO_MOVE once every move has been handed out
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE:
+                    stage = CAPTURES;
+                    if (take(hashMove, 0)) {
+                        return hashMove;
+                    }
+                    break;
+                case CAPTURES: {
+                    int best = selectBest(0, noisyEnd);
+                    if (best == -1) {
+                        stage = FIRST_KILLER;
+                        break;
+                    }
+
+                    // Captures that lose material are unlikely to be good, so they are searched last
+                    // Their exchange is only evaluated once they are selected, in case an earlier move causes a cutoff
+                    int move = take(best);
+                    if (Move.isCapture(move) && staticExchange.isLosing(board, move)) {
+                        badCaptures.add(move);
+                        break;
+                    }
+                    return move;
+                }
+                case FIRST_KILLER:
+                    stage = SECOND_KILLER;
+                    if (take(killer1, noisyEnd)) {
+                        return killer1;
+                    }
+                    break;
+                case SECOND_KILLER:
+                    stage = COUNTER_MOVE;
+                    if (take(killer2, noisyEnd)) {
+                        return killer2;
+                    }
+                    break;
+                case COUNTER_MOVE:
+                    stage = QUIETS;
+                    scoreQuiets();
+                    if (take(counterMove, noisyEnd)) {
+                        return counterMove;
+                    }
+                    break;
+                case QUIETS: {
+                    int best = selectBest(noisyEnd, moves.size());
+                    if (best != -1) {
+                        return take(best);
+                    }
+                    stage = BAD_CAPTURES;
+                    break;
+                }
+                case BAD_CAPTURES:
+                    if (badCaptureIndex < badCaptures.size()) {
+                        return badCaptures.get(badCaptureIndex++);
+                    }
+                    stage = DONE;
+                    break;
+                default:
+                    return Move.NO_MOVE;
+            }
+        }
+    }
+
+    // Returns whether the given move is in the list from the given index on, removing it if so
+    private boolean take(int move, int from) {
+        if (move == Move.NO_MOVE) {
+            return false;
+        }
+
+        for (int i = from; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                moves.set(i, Move.NO_MOVE);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Removes and returns the move at the given index
+    private int take(int index) {
+        int move = moves.get(index);
+        moves.set(index, Move.NO_MOVE);
+        return move;
+    }
+
+    // Returns the index of the remaining move with the highest score between from and to, or -1 if none are left
+    private int selectBest(int from, int to) {
+        int best = -1;
+        for (int i = from; i < to; i++) {
+            if (moves.get(i) != Move.NO_MOVE && (best == -1 || scores[i] > scores[best])) {
+                best = i;
+            }
+        }
+
+        return best;
+    }
+
+    // Scores the remaining quiet moves by how often they caused cutoffs in earlier searches
+    private void scoreQuiets() {
+        for (int i = noisyEnd; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (move != Move.NO_MOVE) {
+                scores[i] = history[Move.origin(move)][Move.target(move)];
+            }
+        }
+    }
+
+    // Returns the MVV-LVA score of a capture or promotion, where a promotion counts as gaining the promoted piece
+    // MVV-LVA (most valuable victim, least valuable attacker) searches captures of valuable pieces by cheap pieces first
+    static int mvvLva(int move) {
+        int gain = 0;
+        if (Move.isCapture(move)) {
+            gain += StaticExchange.pieceValues[Move.captured(move) % 6];
+        }
+        if (Move.isPromotion(move)) {
+            gain += StaticExchange.pieceValues[Move.promotion(move) % 6];
+        }
+
+        return gain * 16 - StaticExchange.pieceValues[Move.piece(move) % 6] / 10;
+    }
+
+    // Sorts a list of captures and promotions by MVV-LVA
+    static void sortByMvvLva(IntMoveList moves) {
+        // Insertion sort, since capture lists are short
+        for (int i = 1; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score = mvvLva(move);
+            int j = i - 1;
+            while (j >= 0 && mvvLva(moves.get(j)) < score) {
+                moves.set(j + 1, moves.get(j));
+                j--;
+            }
+            moves.set(j + 1, move);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package game;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class OffHeapTranspositionTable extends TranspositionTable {
+
+    // A transposition table kept in direct byte buffers outside the Java heap
+    // This allows tables of many gigabytes without growing the heap, and the garbage collector never has to scan or copy them
+    // A single buffer holds at most 2 GB, so the table is split into 1 GB stripes, each of which holds a whole number of buckets
+    // Each stripe starts on a cache line boundary, so that no bucket straddles two cache lines and a probe reads a single line
+    // Direct memory is limited by -XX:MaxDirectMemorySize, which defaults to the maximum heap size, so the build raises it
+    // TranspositionTable.create falls back to a smaller table when the limit is still too low
+
+    private static final int stripeShift = 27; // Each stripe holds 2^27 longs, which is 1 GB
+    private static final long stripeMask = (1L << stripeShift) - 1;
+    private static final int cacheLineSize = 64; // Bytes in a cache line on current x86 and ARM CPUs
+    private static final byte[] zeros = new byte[1 << 20]; // Copied over the stripes to clear them, shared by all tables
+
+    private final ByteBuffer[] stripes; // The buckets of the table, split into stripes
+
+    // Creates a table that uses at most the given number of megabytes
+    public OffHeapTranspositionTable(int sizeMB) {
+        this(bucketsForSize(sizeMB));
+    }
+
+    private OffHeapTranspositionTable(long numBuckets) {
+        super(numBuckets);
+
+        long numLongs = numBuckets * longsPerBucket;
+        int numStripes = (int)((numLongs + stripeMask) >>> stripeShift);
+        stripes = new ByteBuffer[numStripes];
+
+        for (int i = 0; i < numStripes; i++) {
+            long stripeLongs = Math.min(numLongs - ((long)i << stripeShift), 1L << stripeShift);
+            // Allocate a cache line more than needed, so that the stripe can start on a cache line boundary
+            // Native byte order lets reads and writes compile to plain memory accesses
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int)(stripeLongs * Long.BYTES) + cacheLineSize);
+            stripes[i] = buffer.alignedSlice(cacheLineSize).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    @Override
+    protected long read(long index) {
+        return stripes[(int)(index >>> stripeShift)].getLong((int)(index & stripeMask) << 3);
+    }
+
+    @Override
+    protected void write(long index, long value) {
+        stripes[(int)(index >>> stripeShift)].putLong((int)(index & stripeMask) << 3, value);
+    }
+
+    // Direct buffers have no fill operation, so each stripe is cleared by copying a block of zeros over it
+    @Override
+    public void clear() {
+        for (ByteBuffer stripe : stripes) {
+            for (int offset = 0; offset < stripe.capacity(); offset += zeros.length) {
+                stripe.put(offset, zeros, 0, Math.min(zeros.length, stripe.capacity() - offset));
+            }
+        }
+        resetAge();
+    }
+}
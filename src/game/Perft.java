@@ -0,0 +1,211 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import boardcomponents.Board;
+import boardcomponents.Move;
+
+public class Perft {
+
+    // Counts the positions reachable from a board in a number of moves (perft), to check that moves are generated correctly
+    // and to measure how fast they are generated
+    // Each root move is counted in its own fork-join task with its own copy of the board, so the work is spread over every core
+    // Moves are strictly legal, so the positions one move away are counted from the size of the move list instead of
+    // making each move (bulk counting)
+    // An optional cache shared by all tasks remembers the count below each position, so transpositions are only counted once
+    // Credit to the Chess Programming Wiki for information on perft
+
+    private final ForkJoinPool pool; // Runs the tasks counting each root move
+    private final PerftCache cache; // Counts of positions already seen, or null when counting without a cache
+    private long nodes; // The positions counted by the last run
+    private long elapsedNanos; // How long the last run took
+
+    // Creates a perft engine that counts on the given number of threads, with a cache of the given number of megabytes
+    // A size of 0 counts without a cache
+    public Perft(int threads, int cacheSizeMB) {
+        pool = new ForkJoinPool(Math.max(1, threads));
+        cache = cacheSizeMB > 0 ? new PerftCache(cacheSizeMB) : null;
+    }
+
+    // Creates a perft engine that counts on the given number of threads without a cache
+    public Perft(int threads) {
+        this(threads, 0);
+    }
+
+    // Creates a perft engine that counts on every available core without a cache
+    public Perft() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // Returns the number of positions reachable from the board in exactly depth moves
+    // The board is not changed
+    public long run(Board board, int depth) {
+        long startTime = System.nanoTime();
+        nodes = depth <= 1 ? count(new Board(board), depth) : pool.invoke(new RootTask(board, depth, cache)).total;
+        elapsedNanos = System.nanoTime() - startTime;
+        return nodes;
+    }
+
+    // Returns the number of positions reachable after each legal move, in simple algebraic notation, in the order they were generated
+    // The total is recorded as for run, and the board is not changed
+    public Map<String, Long> divide(Board board, int depth) {
+        long startTime = System.nanoTime();
+        RootTask root = pool.invoke(new RootTask(board, Math.max(1, depth), cache));
+        elapsedNanos = System.nanoTime() - startTime;
+        nodes = root.total;
+
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < root.moves.size(); i++) {
+            counts.put(Move.toAlgebraic(root.moves.get(i)), root.counts[i]);
+        }
+
+        return counts;
+    }
+
+    // Empties the cache, which is only needed to time counts without the help of earlier runs
+    public void clearCache() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    // Returns the positions counted by the last run
+    public long nodes() {
+        return nodes;
+    }
+
+    // Returns how long the last run took, in milliseconds
+    public long elapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    // Returns the positions counted per second by the last run
+    public long nodesPerSecond() {
+        return elapsedNanos > 0 ? nodes * 1000000000L / elapsedNanos : nodes;
+    }
+
+    // Stops the threads of this perft engine
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Returns the number of positions reachable from the board in exactly depth moves, on the current thread
+    // The board is returned to its original state afterwards
+    public static long count(Board board, int depth) {
+        IntMoveList[] moveLists = new IntMoveList[Math.max(1, depth) + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new IntMoveList();
+        }
+
+        return count(board, board.moveGeneration(), moveLists, null, depth);
+    }
+
+    // Counts positions recursively, using the move list for each remaining depth and the cache if there is one
+    private static long count(Board board, MoveGeneration moveGeneration, IntMoveList[] moveLists, PerftCache cache, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        // Counts at depth 1 are cheaper to generate than to look up
+        if (cache != null && depth > 1) {
+            long cached = cache.probe(board.zobristHash(), depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+
+        IntMoveList moves = moveLists[depth];
+        moves.clear();
+        moveGeneration.generateMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long total = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            total += count(board, moveGeneration, moveLists, cache, depth - 1);
+            board.undoMove();
+        }
+
+        if (cache != null) {
+            cache.store(board.zobristHash(), depth, total);
+        }
+
+        return total;
+    }
+
+    // Counts the positions after each root move in a separate task, keeping the count for each move
+    private static class RootTask extends RecursiveTask<RootTask> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Board board; // A copy of the root position, since generating moves may change a board
+        private final int depth; // The depth counted from the root
+        private final PerftCache cache; // Shared by all tasks, or null
+        private final IntMoveList moves = new IntMoveList(); // The legal root moves
+        private long[] counts; // The positions counted after each root move
+        private long total; // The positions counted after all root moves
+
+        RootTask(Board board, int depth, PerftCache cache) {
+            this.board = new Board(board);
+            this.depth = depth;
+            this.cache = cache;
+        }
+
+        @Override
+        protected RootTask compute() {
+            board.moveGeneration().generateMoves(moves);
+
+            List<MoveTask> tasks = new ArrayList<MoveTask>();
+            for (int i = 0; i < moves.size(); i++) {
+                tasks.add(new MoveTask(board, moves.get(i), depth - 1, cache));
+            }
+            invokeAll(tasks);
+
+            counts = new long[moves.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = tasks.get(i).join();
+                total += counts[i];
+            }
+
+            return this;
+        }
+    }
+
+    // Counts the positions after a single root move, on a copy of the root position
+    private static class MoveTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Board root; // The root position, which is only copied
+        private final int move; // The root move, encoded as described in boardcomponents.Move
+        private final int depth; // The depth counted after the root move
+        private final PerftCache cache; // Shared by all tasks, or null
+
+        MoveTask(Board root, int move, int depth, PerftCache cache) {
+            this.root = root;
+            this.move = move;
+            this.depth = depth;
+            this.cache = cache;
+        }
+
+        @Override
+        protected Long compute() {
+            Board board = new Board(root);
+            board.makeMove(move);
+
+            IntMoveList[] moveLists = new IntMoveList[depth + 1];
+            for (int i = 0; i < moveLists.length; i++) {
+                moveLists[i] = new IntMoveList();
+            }
+
+            return count(board, board.moveGeneration(), moveLists, cache, depth);
+        }
+    }
+}
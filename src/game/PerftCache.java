@@ -0,0 +1,50 @@
+package game;
+
+import java.util.Arrays;
+
+public class PerftCache {
+
+    // Remembers how many positions are reachable from a position in a number of moves, so that perft counts each
+    // transposition only once
+    // Each entry is two longs: the key XOR the count, and the count
+    // Threads share the cache without locking, and an entry torn by two threads writing at once fails the XOR check,
+    // so it reads as a miss rather than a wrong count
+    // Credit to the Chess Programming Wiki for information on perft hashing
+
+    private final long[] table; // The entries of the cache
+    private final int mask; // Selects an entry from a key
+
+    // Creates a cache that uses at most the given number of megabytes
+    public PerftCache(int sizeMB) {
+        long entries = Long.highestOneBit(Math.max(1, (long)sizeMB * 1024 * 1024 / 16));
+        entries = Math.min(entries, 1L << 29);
+        table = new long[(int)entries * 2];
+        mask = (int)entries - 1;
+    }
+
+    // Returns the count stored for the position and depth, or -1 if there is none
+    public long probe(long zobristHash, int depth) {
+        long key = key(zobristHash, depth);
+        int index = ((int)key & mask) * 2;
+        long count = table[index + 1];
+        return (table[index] ^ count) == key ? count : -1;
+    }
+
+    // Stores the count for the position and depth, replacing whatever entry was there
+    public void store(long zobristHash, int depth, long count) {
+        long key = key(zobristHash, depth);
+        int index = ((int)key & mask) * 2;
+        table[index] = key ^ count;
+        table[index + 1] = count;
+    }
+
+    // Empties the cache
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    // Combines the hash and depth, since the same position has a different count at each depth
+    private static long key(long zobristHash, int depth) {
+        return zobristHash ^ (depth * 0x9E3779B97F4A7C15L);
+    }
+}
@@ -0,0 +1,68 @@
+package game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import boardcomponents.Board;
+
+public class PerftSuite {
+
+    // Runs perft on every position of a suite file and compares the counts with the expected ones
+    // Each line holds a FEN followed by the expected counts at each depth, in the EPD style "<fen> ;D1 20 ;D2 400 ;D3 8902"
+    // Blank lines and lines starting with # are ignored
+
+    private final Perft perft; // Counts the positions
+
+    public PerftSuite(Perft perft) {
+        this.perft = perft;
+    }
+
+    // Runs every position in the file up to maxDepth, printing each result and the overall nodes per second
+    // The cache is emptied before each count, so every count does the same work whatever order the suite is in
+    // Returns the number of counts that did not match
+    public int run(String path, int maxDepth) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(path));
+        int mismatches = 0;
+        int tests = 0;
+        long totalNodes = 0;
+        long totalMillis = 0;
+
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split(";");
+            Board board = new Board(fields[0].trim());
+            for (int i = 1; i < fields.length; i++) {
+                String[] expected = fields[i].trim().split("\\s+");
+                int depth = Integer.parseInt(expected[0].substring(1));
+                long expectedNodes = Long.parseLong(expected[1]);
+                if (depth > maxDepth) {
+                    continue;
+                }
+
+                // Counts from earlier depths would otherwise be looked up instead of counted, which would inflate the nodes per second
+                perft.clearCache();
+                long nodes = perft.run(board, depth);
+                tests++;
+                totalNodes += nodes;
+                totalMillis += perft.elapsedMillis();
+
+                boolean passed = nodes == expectedNodes;
+                if (!passed) {
+                    mismatches++;
+                }
+                System.out.println((passed ? "Passed" : "Failed") + " depth " + depth + ": " + nodes + (passed ? "" : " expected " + expectedNodes)
+                                   + " in " + perft.elapsedMillis() + " ms, " + perft.nodesPerSecond() + " nodes/s, " + fields[0].trim());
+            }
+        }
+
+        System.out.println(tests + " tests, " + mismatches + " mismatches, " + totalNodes + " positions in " + totalMillis + " ms, "
+                           + (totalMillis > 0 ? totalNodes * 1000 / totalMillis : totalNodes) + " nodes/s");
+        return mismatches;
+    }
+}
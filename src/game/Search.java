@@ -0,0 +1,616 @@
+package game;
+
+import java.util.Arrays;
+
+import boardcomponents.Board;
+import boardcomponents.Move;
+
+public class Search {
+
+    // A search worker, owning everything a thread changes while searching so that workers never share mutable state
+    // Only the transposition table is shared, which is safe because its entries are validated as they are read
+    //
+    // Several workers search the same position at once in what is known as Lazy SMP
+    // The main worker decides when the search ends and reports the result, while helper workers fill the shared table,
+    // so that the main worker finds more cutoffs and best moves
+    // Helpers skip some depths in a staggered pattern, so that they do not all search the same depth in the same order
+    // Credit to the Chess Programming Wiki and Stockfish for information on Lazy SMP
+
+    // Depth skipping pattern of helper workers, taken from Stockfish
+    // Helper i skips a depth when ((depth + skipPhase[i]) / skipSize[i]) is odd, with the pattern repeating after 20 helpers
+    private static final int[] skipSize = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] skipPhase = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private static final int deltaMargin = 200; // How much a capture may gain beyond the captured piece's value in quiescence search
+
+    public static final int START_DEPTH = 1; // The first depth searched by iterative deepening
+    public static final double MATE = 100000; // The score of delivering checkmate at the root, from which the plies to the mate are subtracted
+    private static final double mateBound = MATE - 1000; // Scores at least this far from 0 are mates, since no line is this many plies long
+    public static final int MAX_DEPTH = 64; // The deepest depth searched by iterative deepening
+    private static final int timeCheckInterval = 1024; // How many nodes are searched between checks of the clock, a power of two
+    private static final double aspirationWindow = 50; // Half the width of the first window searched around the previous score
+    private static final int maxHistory = 16384; // The bound that history scores approach but never pass, however long a search runs
+
+    private final int workerIndex; // 0 for the main worker, which reports the result, and 1 or more for helpers
+    private final TranspositionTable transTable; // Hash table shared by all workers
+    private final SearchOptions options; // Which pruning and reduction techniques to use, shared by all workers
+    private Board board; // This worker's copy of the board
+    private MoveGeneration moveGeneration; // The move generator for this worker's board
+    private IntMoveList[] moveLists = new IntMoveList[64]; // Move lists reused at each ply of quiescence search, so that searching does not allocate new lists
+    private MovePicker[] movePickers = new MovePicker[MAX_DEPTH + 1]; // Move pickers reused at each ply of the main search
+    private final StaticExchange staticExchange = new StaticExchange(); // Finds captures that lose material
+
+    // Move ordering heuristics, learned from the moves that cause cutoffs
+    // Quiet moves that refute one position often refute similar positions, so they are tried before other quiet moves
+    private int[][] killerMoves = new int[MAX_DEPTH + 1][2]; // The two most recent quiet moves that caused a cutoff at each ply
+    private int[][][] history = new int[2][64][64]; // How much each quiet move has caused cutoffs, indexed by color, origin and target
+    private int[][] counterMoves = new int[12][64]; // The quiet move that last refuted each move, indexed by the refuted move's piece and target
+
+    private int bestMove; // The move currently considered the best by the search algorithm
+    private int bestMoveAfterSearch; // The move considered the best after a complete search at a specified depth
+    private int completedDepth; // The deepest search that has been completed
+    private int currentDepth; // The depth that the search algorithm is currently searching
+    private int ply; // The number of moves made since the root, which differs from currentDepth - depth once depths are reduced
+    private TimeManager timeManager; // Decides when the main worker stops searching
+    private long searchStartTime; // The value of System.nanoTime() when this search started, which a ponder hit does not change
+    private SearchListener listener; // Receives the progress of the main worker, or null
+    private Search[] team = {this}; // All workers searching together, used to count their nodes
+    private final SearchStatistics statistics = new SearchStatistics(); // Counts the nodes, cutoffs and re-searches of the search
+    private boolean timeout; // Determines whether the search should be halted
+
+    // The principal variation is the line of best play found by the search
+    // pvTable[ply] holds the best line from that ply, of which the first pvLength[ply] - ply moves are set, forming a triangular table
+    private int[][] pvTable = new int[MAX_DEPTH + 1][MAX_DEPTH + 1];
+    private int[] pvLength = new int[MAX_DEPTH + 1];
+    private int[] principalVariation = new int[0]; // The principal variation of the deepest completed search
+    private double score; // The score of the deepest completed search
+    private boolean followPv; // Whether the current node lies on the previous principal variation
+    private volatile boolean stopped; // Set by another thread to halt a helper
+
+    public Search(int workerIndex, TranspositionTable transTable, SearchOptions options) {
+        this.workerIndex = workerIndex;
+        this.transTable = transTable;
+        this.options = options;
+    }
+
+    // Sets the position to search, which is copied so that the original board is not changed
+    // This must be called before the worker's thread is started, so that a stop request cannot be lost
+    public void setPosition(Board position) {
+        board = new Board(position);
+        moveGeneration = board.moveGeneration();
+        ply = 0;
+        stopped = false;
+    }
+
+    // Halts the search as soon as possible
+    public void stop() {
+        stopped = true;
+    }
+
+    // Returns the move considered the best after the deepest completed search, or Move.NO_MOVE if none was completed
+    public int bestMoveAfterSearch() {
+        return bestMoveAfterSearch;
+    }
+
+    // Returns the deepest search that has been completed
+    public int completedDepth() {
+        return completedDepth;
+    }
+
+    // Returns the number of positions searched since the search started
+    public long nodes() {
+        return statistics.nodes;
+    }
+
+    // Returns a copy of the statistics of the search since it started, which may be taken while it runs
+    public SearchStatistics statistics() {
+        return statistics.snapshot();
+    }
+
+    // Sets the workers that search together with this one, including itself
+    public void setTeam(Search[] team) {
+        this.team = team;
+    }
+
+    // Returns the principal variation of the deepest completed search, starting with the best move
+    public int[] principalVariation() {
+        return Arrays.copyOf(principalVariation, principalVariation.length);
+    }
+
+    // Returns the score of the deepest completed search from the perspective of the player to move
+    public double score() {
+        return score;
+    }
+
+    // Finds the best move with iterative deepening, encoded as described in Move
+    // The main worker searches until the time manager ends the search or it is stopped, but always completes the first depth so that it has a move
+    // Helpers search until they are stopped
+    // listener receives the progress of the main worker after each iteration, and may be null
+    public int iterativeDeepening(TimeManager timeManager, SearchListener listener) {
+        this.timeManager = timeManager;
+        this.listener = listener;
+        searchStartTime = System.nanoTime();
+        timeout = false;
+        statistics.reset();
+        bestMove = Move.NO_MOVE;
+        bestMoveAfterSearch = Move.NO_MOVE;
+        completedDepth = 0;
+        principalVariation = new int[0];
+        score = 0;
+        ageHeuristics();
+
+        int maxDepth = Math.min(MAX_DEPTH, timeManager.depthLimit());
+        for (currentDepth = START_DEPTH; currentDepth <= maxDepth; currentDepth++) {
+            if (workerIndex > 0) {
+                int i = (workerIndex - 1) % skipSize.length;
+                if (((currentDepth + skipPhase[i]) / skipSize[i]) % 2 != 0) {
+                    continue;
+                }
+            }
+
+            ageHistory();
+
+            // The event only records anything while a flight recording has it enabled
+            SearchIterationEvent event = workerIndex == 0 ? new SearchIterationEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            long iterationStart = System.nanoTime();
+
+            double result = aspirationSearch();
+
+            if (timeout) {
+                break;
+            }
+            statistics.completeIteration(statistics.nodes, (System.nanoTime() - iterationStart) / 1000000);
+            if (event != null && event.shouldCommit()) {
+                event.record(currentDepth, result, statistics);
+                event.commit();
+            }
+
+            // Only update the bestMoveAfterSearch if the search at this depth completed
+            bestMoveAfterSearch = bestMove;
+            completedDepth = currentDepth;
+            score = result;
+            principalVariation = Arrays.copyOf(pvTable[0], pvLength[0]);
+            if (workerIndex == 0) {
+                // The time manager's clock restarts on a ponder hit, so the time reported with the nodes is measured here instead
+                if (listener != null) {
+                    long elapsedMillis = (System.nanoTime() - searchStartTime) / 1000000;
+                    listener.onIteration(new SearchInfo(completedDepth, score, principalVariation, teamNodes(), elapsedMillis));
+                }
+
+                if (timeManager.iterationComplete(bestMoveAfterSearch) || timeManager.nodeLimitReached(teamNodes())) {
+                    break;
+                }
+
+                // A mate within the searched depth is proven, and searching deeper cannot find a faster one
+                if (isMate(score) && matePlies(score) <= completedDepth) {
+                    break;
+                }
+            }
+        }
+
+        return bestMoveAfterSearch;
+    }
+
+    // Searches the root at the current depth in a narrow window around the previous score, widening it until the score falls inside
+    // Most iterations score close to the previous one, so the narrow window prunes more of the tree
+    private double aspirationSearch() {
+        double delta = aspirationWindow;
+        double alpha = Double.NEGATIVE_INFINITY;
+        double beta = Double.POSITIVE_INFINITY;
+
+        // A mate score is exact, so a window around it would only fail
+        if (completedDepth > 0 && !isMate(score)) {
+            alpha = score - delta;
+            beta = score + delta;
+        }
+
+        while (true) {
+            followPv = true;
+            double result = negamaxSearch(currentDepth, alpha, beta, true);
+
+            if (timeout) {
+                return result;
+            }
+
+            // Widen the side of the window that the score fell outside of, searching the full range after a few failures
+            if (result <= alpha && alpha != Double.NEGATIVE_INFINITY) {
+                delta *= 2;
+                alpha = delta > aspirationWindow * 8 ? Double.NEGATIVE_INFINITY : result - delta;
+            } else if (result >= beta && beta != Double.POSITIVE_INFINITY) {
+                delta *= 2;
+                beta = delta > aspirationWindow * 8 ? Double.POSITIVE_INFINITY : result + delta;
+            } else {
+                return result;
+            }
+        }
+    }
+
+    // Searches for the best possible move using the minimax algorithm with alpha-beta pruning
+    // After the first move, moves are searched with a zero window that only proves whether they are worse than the best move so far
+    // Only moves that turn out better are searched again with the full window, which is known as principal variation search
+    // pvNode is set for nodes searched with the full window, which are never cut short by the table or a null move, so that the
+    // principal variation is complete; scores are fractional, so the width of the window cannot tell these nodes apart
+    public double negamaxSearch(int depth, double alpha, double beta, boolean pvNode) {
+        pvLength[ply] = ply;
+        boolean onPv = followPv;
+        followPv = false;
+
+        statistics.nodes++;
+
+        // Do not continue searching if the time is up or this helper has been stopped
+        if (checkTimeout()) {
+            return alpha;
+        }
+
+        // For leaf nodes, resolve any captures before evaluating the board position
+        if (depth <= 0) {
+            return quiescenceSearch(alpha, beta);
+        }
+
+        // Read the hash before generating moves, since move generation may clear an en passant tile that cannot be captured
+        long hash = board.zobristHash();
+        double originalAlpha = alpha;
+
+        // Use the result of a previous search of this position if it was searched at least as deeply
+        // Nodes searched with a full window are always searched, so that the root finds a best move and the principal variation is complete
+        long entry = transTable.probe(hash);
+        statistics.ttProbes++;
+        if (entry != 0) {
+            statistics.ttHits++;
+        }
+        if (entry != 0 && !pvNode && TranspositionTable.depth(entry) >= depth) {
+            double score = scoreFromTable(TranspositionTable.score(entry));
+            int bound = TranspositionTable.bound(entry);
+
+            if (bound == TranspositionTable.EXACT) {
+                statistics.ttCutoffs++;
+                return score;
+            }
+            if (bound == TranspositionTable.LOWER_BOUND && score >= beta) {
+                statistics.ttCutoffs++;
+                return beta;
+            }
+            if (bound == TranspositionTable.UPPER_BOUND && score <= alpha) {
+                statistics.ttCutoffs++;
+                return alpha;
+            }
+        }
+
+        MovePicker picker = movePicker(ply);
+        IntMoveList moves = picker.moves();
+        moves.clear();
+        moveGeneration.generateMoves(moves);
+        // Searching deeper overwrites the move generator, so its check information must be read now
+        boolean inCheck = moveGeneration.inCheck(board.whiteToMove());
+        // There are no moves that can be made
+        if (moves.isEmpty()) {
+            // The player has been checkmated, which is scored by how many plies from the root it happens, so that faster mates score higher
+            if (inCheck) {
+                return -(MATE - ply);
+            }
+            // The player has been stalemated, so return evaluation of 0
+            return 0;
+        }
+
+        // Null-move pruning: if passing still fails high, a real move almost certainly would too
+        // Two null moves in a row would only search the same position shallower, so a null move is never answered with another
+        if (options.nullMovePruning() && !pvNode && !inCheck && depth >= options.nullMoveMinDepth() && board.lastMove() != Move.NO_MOVE
+            && board.hasNonPawnMaterial(board.whiteToMove()) && evaluate() >= beta) {
+            statistics.nullMoveSearches++;
+            board.makeNullMove();
+            ply++;
+            double evaluation = -negamaxSearch(depth - 1 - options.nullMoveReduction(), -beta, -beta + 1, false);
+            ply--;
+            board.undoMove();
+
+            if (timeout) {
+                return alpha;
+            }
+            if (evaluation >= beta) {
+                statistics.nullMoveCutoffs++;
+                return beta;
+            }
+        }
+
+        // Search the best move from a previous search first, since it is the most likely to cause a cutoff
+        // Along the previous principal variation, its move is searched first instead
+        int hashMove = Move.NO_MOVE;
+        if (onPv && ply < principalVariation.length) {
+            hashMove = principalVariation[ply];
+        } else if (entry != 0) {
+            hashMove = findBestMove(moves, entry);
+        }
+
+        int side = board.whiteToMove() ? 0 : 1;
+        int previousMove = board.lastMove();
+        int counterMove = previousMove == Move.NO_MOVE ? Move.NO_MOVE : counterMoves[Move.piece(previousMove)][Move.target(previousMove)];
+        picker.start(board, staticExchange, hashMove, killerMoves[ply][0], killerMoves[ply][1], counterMove, history[side]);
+
+        // Look for best option for this player
+        int bestMoveHere = Move.NO_MOVE;
+        int move;
+        for (int i = 0; (move = picker.next()) != Move.NO_MOVE; i++) {
+            board.makeMove(move);
+            ply++;
+            double evaluation;
+            // A zero window needs a finite alpha, so the full window is used until a move has a score
+            if (i == 0 || Double.isInfinite(alpha)) {
+                followPv = onPv && i == 0 && ply - 1 < principalVariation.length && move == principalVariation[ply - 1];
+                evaluation = -negamaxSearch(depth - 1, -beta, -alpha, pvNode);
+            } else {
+                // Late move reductions: search quiet moves ordered late one ply shallower, unless escaping check
+                boolean reduced = options.lateMoveReductions() && depth >= options.lmrMinDepth() && i >= options.lmrMinMoveIndex()
+                                  && !inCheck && !Move.isCapture(move) && !Move.isPromotion(move);
+                if (reduced) {
+                    statistics.reducedSearches++;
+                    evaluation = -negamaxSearch(depth - 2, -alpha - 1, -alpha, false);
+                    if (evaluation > alpha) {
+                        statistics.reducedReSearches++;
+                    }
+                } else {
+                    evaluation = alpha + 1; // Skip straight to the full depth search
+                }
+
+                if (evaluation > alpha && !timeout) {
+                    statistics.zeroWindowSearches++;
+                    evaluation = -negamaxSearch(depth - 1, -alpha - 1, -alpha, false);
+                }
+                if (evaluation > alpha && evaluation < beta && !timeout) {
+                    statistics.zeroWindowReSearches++;
+                    evaluation = -negamaxSearch(depth - 1, -beta, -alpha, pvNode);
+                }
+            }
+            ply--;
+            board.undoMove();
+
+            // The result of an interrupted search cannot be trusted, so it is neither used nor stored
+            if (timeout) {
+                return alpha;
+            }
+
+            if (evaluation >= beta) {
+                statistics.betaCutoffs++;
+                if (i == 0) {
+                    statistics.firstMoveCutoffs++;
+                }
+
+                // At the root, a move that fails high is still the best so far, and is kept while the aspiration window is widened
+                if (ply == 0) {
+                    bestMove = move;
+                    updatePv(ply, move);
+                }
+
+                if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                    updateHeuristics(move, previousMove, side, depth);
+                }
+
+                transTable.store(hash, depth, TranspositionTable.LOWER_BOUND, move, scoreToTable(beta));
+                return beta; // The opponent will avoid this position because the move was too good
+            }
+
+            if (evaluation > alpha) {
+                alpha = evaluation;
+                bestMoveHere = move;
+                updatePv(ply, move);
+
+                if (ply == 0) {
+                    bestMove = move;
+                }
+            }
+        }
+
+        // If no move raised alpha, the true score is at most alpha and there is no best move to remember
+        if (alpha > originalAlpha) {
+            transTable.store(hash, depth, TranspositionTable.EXACT, bestMoveHere, scoreToTable(alpha));
+        } else {
+            transTable.store(hash, depth, TranspositionTable.UPPER_BOUND, Move.NO_MOVE, scoreToTable(alpha));
+        }
+
+        return alpha;
+    }
+
+    // Searches only captures and promotions until the position is quiet, so that leaves are not evaluated in the middle of an exchange
+    // The player to move may also stand pat and keep the current evaluation, since they are not forced to capture
+    // Credit to the Chess Programming Wiki for information on quiescence search
+    private double quiescenceSearch(double alpha, double beta) {
+        statistics.nodes++;
+        statistics.quiescenceNodes++;
+        if (checkTimeout()) {
+            return alpha;
+        }
+
+        double standPat = evaluate();
+        if (standPat >= beta) {
+            return beta;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        IntMoveList moves = moveList(ply);
+        moves.clear();
+        moveGeneration.generateCaptures(moves);
+        MovePicker.sortByMvvLva(moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+
+            if (!Move.isPromotion(move)) {
+                // Delta pruning: skip captures that cannot raise alpha even if they win the captured piece outright
+                if (standPat + StaticExchange.pieceValues[Move.captured(move) % 6] + deltaMargin <= alpha) {
+                    continue;
+                }
+                // Skip captures that lose material, since standing pat is at least as good
+                if (staticExchange.isLosing(board, move)) {
+                    continue;
+                }
+            }
+
+            board.makeMove(move);
+            ply++;
+            double evaluation = -quiescenceSearch(-beta, -alpha);
+            ply--;
+            board.undoMove();
+
+            if (timeout) {
+                return alpha;
+            }
+
+            if (evaluation >= beta) {
+                return beta;
+            }
+            if (evaluation > alpha) {
+                alpha = evaluation;
+            }
+        }
+
+        return alpha;
+    }
+
+    // Returns whether a score is a checkmate, for either player
+    public static boolean isMate(double score) {
+        return Math.abs(score) >= mateBound;
+    }
+
+    // Returns the number of plies from the root to the checkmate of a mate score
+    public static int matePlies(double score) {
+        return (int)Math.round(MATE - Math.abs(score));
+    }
+
+    // Converts a mate score from plies from the root to plies from the current position, so that it can be stored in the table
+    // The same position may be reached at a different ply, where the mate is just as far from the position but not from the root
+    private double scoreToTable(double score) {
+        if (score >= mateBound) {
+            return score + ply;
+        }
+        if (score <= -mateBound) {
+            return score - ply;
+        }
+
+        return score;
+    }
+
+    // Converts a mate score read from the table back to plies from the root
+    private double scoreFromTable(double score) {
+        if (score >= mateBound) {
+            return score - ply;
+        }
+        if (score <= -mateBound) {
+            return score + ply;
+        }
+
+        return score;
+    }
+
+    // Returns the evaluation of the board from the perspective of the player to move
+    private double evaluate() {
+        return board.whiteToMove() ? board.currentEval() : -board.currentEval();
+    }
+
+    // Returns whether the search should halt, because the time or node limit is reached or this worker has been stopped
+    // The main worker only stops once a search has completed, so that it always has a move to play
+    // The limits are only checked every timeCheckInterval nodes, since checking them at every node is a noticeable cost
+    private boolean checkTimeout() {
+        if (stopped && (workerIndex > 0 || bestMoveAfterSearch != Move.NO_MOVE)) {
+            timeout = true;
+        } else if (workerIndex == 0 && (statistics.nodes & (timeCheckInterval - 1)) == 0 && bestMoveAfterSearch != Move.NO_MOVE
+                   && (timeManager.hardLimitReached() || timeManager.nodeLimitReached(teamNodes()))) {
+            timeout = true;
+        }
+
+        return timeout;
+    }
+
+    // Remembers a quiet move that caused a cutoff, so that it is tried early in similar positions
+    private void updateHeuristics(int move, int previousMove, int side, int depth) {
+        if (killerMoves[ply][0] != move) {
+            killerMoves[ply][1] = killerMoves[ply][0];
+            killerMoves[ply][0] = move;
+        }
+
+        // Deeper cutoffs save more work, so they count for more
+        // The bonus shrinks as the score nears maxHistory, known as history gravity, so scores stay bounded in long analyses
+        int bonus = Math.min(depth * depth, maxHistory);
+        int[] targetHistory = history[side][Move.origin(move)];
+        int target = Move.target(move);
+        targetHistory[target] += bonus - targetHistory[target] * bonus / maxHistory;
+
+        if (previousMove != Move.NO_MOVE) {
+            counterMoves[Move.piece(previousMove)][Move.target(previousMove)] = move;
+        }
+    }
+
+    // Prepares the move ordering heuristics for a new search
+    // Killers are specific to the previous position, so they are cleared
+    private void ageHeuristics() {
+        for (int[] killers : killerMoves) {
+            killers[0] = Move.NO_MOVE;
+            killers[1] = Move.NO_MOVE;
+        }
+    }
+
+    // Halves the history scores before each iteration, so that cutoffs found at the current depth count for more
+    private void ageHistory() {
+        for (int[][] sideHistory : history) {
+            for (int[] originHistory : sideHistory) {
+                for (int target = 0; target < 64; target++) {
+                    originHistory[target] /= 2;
+                }
+            }
+        }
+    }
+
+    // Sets the principal variation from a ply to the given move followed by the principal variation of the next ply
+    private void updatePv(int ply, int move) {
+        pvTable[ply][ply] = move;
+        for (int i = ply + 1; i < pvLength[ply + 1]; i++) {
+            pvTable[ply][i] = pvTable[ply + 1][i];
+        }
+        pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+    }
+
+    // Returns the number of positions searched by all workers in the team
+    private long teamNodes() {
+        long total = 0;
+        for (Search worker : team) {
+            total += worker.statistics.nodes;
+        }
+
+        return total;
+    }
+
+    // Returns the move in the list that is the best move of a transposition table entry, or Move.NO_MOVE if there is none
+    private static int findBestMove(IntMoveList moves, long entry) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (TranspositionTable.isBestMove(entry, moves.get(i))) {
+                return moves.get(i);
+            }
+        }
+
+        return Move.NO_MOVE;
+    }
+
+    // Returns the move list for the given ply, creating it if it has not been used before
+    private IntMoveList moveList(int ply) {
+        if (ply >= moveLists.length) {
+            moveLists = Arrays.copyOf(moveLists, ply * 2);
+        }
+        if (moveLists[ply] == null) {
+            moveLists[ply] = new IntMoveList();
+        }
+
+        return moveLists[ply];
+    }
+
+    // Returns the move picker for the given ply, creating it if it has not been used before
+    private MovePicker movePicker(int ply) {
+        if (movePickers[ply] == null) {
+            movePickers[ply] = new MovePicker();
+        }
+
+        return movePickers[ply];
+    }
+}
@@ -0,0 +1,103 @@
+package game;
+
+import java.util.concurrent.CompletableFuture;
+
+import boardcomponents.Move;
+
+public class SearchHandle {
+
+    // Controls a search running in the background, started by Game.startSearch
+    // The future completes with the best move, encoded as described in Move, once the search ends
+    // Game reuses its workers for the next search, so the results are copied when the search ends, after which the handle no longer
+    // touches the workers
+
+    private final Search[] workers; // The workers running the search, the first being the main worker
+    private final TimeManager timeManager; // Decides when the search ends
+    private final CompletableFuture<Integer> result = new CompletableFuture<Integer>();
+    private boolean finished; // Whether the search has ended and its results have been copied
+    private SearchStatistics finalStatistics; // The combined statistics of all workers when the search ended
+    private int[] finalPrincipalVariation; // The main worker's principal variation when the search ended
+
+    SearchHandle(Search[] workers, TimeManager timeManager) {
+        this.workers = workers;
+        this.timeManager = timeManager;
+    }
+
+    // Returns the future that completes with the best move
+    public CompletableFuture<Integer> future() {
+        return result;
+    }
+
+    // Waits for the search to end and returns the best move
+    public int join() {
+        return result.join();
+    }
+
+    // Returns whether the search has ended
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    // Ends the search as soon as possible, including a search that is pondering
+    // The future still completes with the best move found so far
+    // Does nothing once the search has ended, so an old handle cannot stop a later search
+    public synchronized void stop() {
+        if (finished) {
+            return;
+        }
+
+        for (Search worker : workers) {
+            worker.stop();
+        }
+        timeManager.stopPondering();
+    }
+
+    // Tells a pondering search that the opponent played the expected move, so it now searches under the time manager's limits
+    public synchronized void ponderHit() {
+        if (finished) {
+            return;
+        }
+
+        timeManager.ponderHit();
+    }
+
+    // Returns the combined statistics of all workers, which may be taken while the search runs
+    public synchronized SearchStatistics statistics() {
+        if (finished) {
+            return finalStatistics.snapshot();
+        }
+
+        SearchStatistics[] statistics = new SearchStatistics[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            statistics[i] = workers[i].statistics();
+        }
+
+        return SearchStatistics.sum(statistics);
+    }
+
+    // Returns the move the main worker expects the opponent to reply with, or Move.NO_MOVE if it does not have one
+    // This is the move to ponder on, and is only meaningful once the search has ended
+    public synchronized int ponderMove() {
+        int[] pv = finished ? finalPrincipalVariation : workers[0].principalVariation();
+        return pv.length > 1 ? pv[1] : Move.NO_MOVE;
+    }
+
+    // Completes the future, called by the thread running the search
+    void complete(int bestMove) {
+        finish();
+        result.complete(bestMove);
+    }
+
+    // Completes the future with an error, called by the thread running the search
+    void fail(Throwable error) {
+        finish();
+        result.completeExceptionally(error);
+    }
+
+    // Copies the results of the workers, which are free to run another search afterwards
+    private synchronized void finish() {
+        finalStatistics = statistics();
+        finalPrincipalVariation = workers[0].principalVariation();
+        finished = true;
+    }
+}
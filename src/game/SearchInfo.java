@@ -0,0 +1,72 @@
+package game;
+
+import java.util.Arrays;
+
+import boardcomponents.Move;
+
+public class SearchInfo {
+
+    // A snapshot of a search's progress, reported after each completed iteration
+
+    private final int depth; // The depth that was completed
+    private final double score; // The score from the perspective of the player to move
+    private final int[] principalVariation; // The line of best play, starting with the best move
+    private final long nodes; // The positions searched by all threads so far
+    private final long timeMillis; // The milliseconds since the search started
+
+    public SearchInfo(int depth, double score, int[] principalVariation, long nodes, long timeMillis) {
+        this.depth = depth;
+        this.score = score;
+        this.principalVariation = Arrays.copyOf(principalVariation, principalVariation.length);
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+    }
+
+    // Returns the depth that was completed
+    public int depth() {
+        return depth;
+    }
+
+    // Returns the score from the perspective of the player to move
+    public double score() {
+        return score;
+    }
+
+    // Returns the line of best play, starting with the best move
+    public int[] principalVariation() {
+        return Arrays.copyOf(principalVariation, principalVariation.length);
+    }
+
+    // Returns the best move, or Move.NO_MOVE if the principal variation is empty
+    public int bestMove() {
+        return principalVariation.length > 0 ? principalVariation[0] : Move.NO_MOVE;
+    }
+
+    // Returns the positions searched by all threads so far
+    public long nodes() {
+        return nodes;
+    }
+
+    // Returns the milliseconds since the search started
+    public long timeMillis() {
+        return timeMillis;
+    }
+
+    // Returns the positions searched per second
+    public long nodesPerSecond() {
+        return timeMillis > 0 ? nodes * 1000 / timeMillis : nodes;
+    }
+
+    // Returns the principal variation in algebraic notation, separated by spaces
+    public String principalVariationString() {
+        StringBuilder sb = new StringBuilder();
+        for (int move : principalVariation) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(Move.toAlgebraic(move));
+        }
+
+        return sb.toString();
+    }
+}
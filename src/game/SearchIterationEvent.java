@@ -0,0 +1,60 @@
+package game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("chess.SearchIteration")
+@Label("Search Iteration")
+@Category("Chess Engine")
+@Description("An iteration of iterative deepening completed by the main search worker")
+@StackTrace(false)
+class SearchIterationEvent extends Event {
+
+    // A Java Flight Recorder event for each completed iteration, so that searches can be studied alongside GC and CPU profiles
+    // Events are only recorded while a recording enables them, for example with -XX:StartFlightRecording, and cost almost
+    // nothing otherwise
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Score")
+    double score;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Quiescence Nodes")
+    long quiescenceNodes;
+
+    @Label("TT Hit Rate")
+    double ttHitRate;
+
+    @Label("First Move Cutoff Rate")
+    double firstMoveCutoffRate;
+
+    @Label("Null Move Cutoff Rate")
+    double nullMoveCutoffRate;
+
+    @Label("LMR Re-search Rate")
+    double reducedReSearchRate;
+
+    @Label("Branching Factor")
+    double branchingFactor;
+
+    // Fills in the fields from the statistics of the search after the iteration
+    void record(int depth, double score, SearchStatistics statistics) {
+        this.depth = depth;
+        this.score = score;
+        this.nodes = statistics.nodes();
+        this.quiescenceNodes = statistics.quiescenceNodes();
+        this.ttHitRate = statistics.ttHitRate();
+        this.firstMoveCutoffRate = statistics.firstMoveCutoffRate();
+        this.nullMoveCutoffRate = statistics.nullMoveCutoffRate();
+        this.reducedReSearchRate = statistics.reducedReSearchRate();
+        this.branchingFactor = statistics.effectiveBranchingFactor();
+    }
+}
@@ -0,0 +1,10 @@
+package game;
+
+public interface SearchListener {
+
+    // Receives the progress of a search
+    // Called on the search thread, so implementations should return quickly
+
+    // Called after each iteration of the main worker completes
+    void onIteration(SearchInfo info);
+}
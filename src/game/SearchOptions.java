@@ -0,0 +1,79 @@
+package game;
+
+public class SearchOptions {
+
+    // Switches and parameters for the pruning and reduction techniques used by Search
+    // Each technique can be turned off to measure what it gains, or to rule it out when a search misbehaves
+
+    // Null-move pruning: let the opponent move twice, and if the position is still good enough to fail high, prune it
+    // It relies on moving being better than passing, which fails in zugzwang, so it is not used when the player only has pawns left
+    private boolean nullMovePruning = true;
+    private int nullMoveMinDepth = 3; // The shallowest depth at which a null move is tried
+    private int nullMoveReduction = 2; // How much shallower the null move is searched, on top of the move itself
+
+    // Late move reductions: quiet moves ordered late are unlikely to be best, so they are searched at a reduced depth first
+    // A move that unexpectedly raises alpha is searched again at the full depth
+    private boolean lateMoveReductions = true;
+    private int lmrMinDepth = 3; // The shallowest depth at which moves are reduced
+    private int lmrMinMoveIndex = 3; // How many moves are searched at full depth before reducing
+
+    // Returns whether null-move pruning is used
+    public boolean nullMovePruning() {
+        return nullMovePruning;
+    }
+
+    // Turns null-move pruning on or off
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    // Returns the shallowest depth at which a null move is tried
+    public int nullMoveMinDepth() {
+        return nullMoveMinDepth;
+    }
+
+    // Sets the shallowest depth at which a null move is tried
+    public void setNullMoveMinDepth(int nullMoveMinDepth) {
+        this.nullMoveMinDepth = nullMoveMinDepth;
+    }
+
+    // Returns how much shallower the null move is searched
+    public int nullMoveReduction() {
+        return nullMoveReduction;
+    }
+
+    // Sets how much shallower the null move is searched
+    public void setNullMoveReduction(int nullMoveReduction) {
+        this.nullMoveReduction = nullMoveReduction;
+    }
+
+    // Returns whether late move reductions are used
+    public boolean lateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    // Turns late move reductions on or off
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    // Returns the shallowest depth at which moves are reduced
+    public int lmrMinDepth() {
+        return lmrMinDepth;
+    }
+
+    // Sets the shallowest depth at which moves are reduced
+    public void setLmrMinDepth(int lmrMinDepth) {
+        this.lmrMinDepth = lmrMinDepth;
+    }
+
+    // Returns how many moves are searched at full depth before reducing
+    public int lmrMinMoveIndex() {
+        return lmrMinMoveIndex;
+    }
+
+    // Sets how many moves are searched at full depth before reducing
+    public void setLmrMinMoveIndex(int lmrMinMoveIndex) {
+        this.lmrMinMoveIndex = lmrMinMoveIndex;
+    }
+}
@@ -0,0 +1,240 @@
+package game;
+
+public class SearchStatistics {
+
+    // Counts where a search spends its nodes, to guide tuning of move ordering and pruning
+    // Each worker owns one instance and is the only thread that writes to it, so counting costs a plain increment
+    // Snapshots taken from another thread while the search runs may be slightly out of date, which is fine for statistics
+
+    private static final int maxIterations = Search.MAX_DEPTH + 1;
+
+    long nodes; // Positions searched, including quiescence nodes
+    long quiescenceNodes; // Positions searched by the quiescence search
+    long ttProbes; // Transposition table lookups
+    long ttHits; // Lookups that found an entry for the position
+    long ttCutoffs; // Lookups whose entry ended the search of the position
+    long betaCutoffs; // Positions where a move failed high
+    long firstMoveCutoffs; // Beta cutoffs caused by the first move searched
+    long nullMoveSearches; // Null moves tried
+    long nullMoveCutoffs; // Null moves that failed high
+    long reducedSearches; // Moves searched at a reduced depth by late move reductions
+    long reducedReSearches; // Reduced moves that had to be searched again at full depth
+    long zeroWindowSearches; // Moves searched with a zero window by principal variation search
+    long zeroWindowReSearches; // Zero window searches that had to be repeated with the full window
+    int completedIterations; // Iterations of iterative deepening that completed
+    final long[] iterationNodes = new long[maxIterations]; // The nodes searched by the end of each completed iteration
+    final long[] iterationMillis = new long[maxIterations]; // The milliseconds taken by each completed iteration
+
+    // Sets every counter to zero
+    public void reset() {
+        nodes = 0;
+        quiescenceNodes = 0;
+        ttProbes = 0;
+        ttHits = 0;
+        ttCutoffs = 0;
+        betaCutoffs = 0;
+        firstMoveCutoffs = 0;
+        nullMoveSearches = 0;
+        nullMoveCutoffs = 0;
+        reducedSearches = 0;
+        reducedReSearches = 0;
+        zeroWindowSearches = 0;
+        zeroWindowReSearches = 0;
+        completedIterations = 0;
+    }
+
+    // Records that an iteration completed, given the total nodes searched and how long the iteration took
+    void completeIteration(long totalNodes, long millis) {
+        if (completedIterations < maxIterations) {
+            iterationNodes[completedIterations] = totalNodes;
+            iterationMillis[completedIterations] = millis;
+            completedIterations++;
+        }
+    }
+
+    // Returns a copy of these statistics
+    public SearchStatistics snapshot() {
+        SearchStatistics copy = new SearchStatistics();
+        copy.add(this);
+        copy.completedIterations = completedIterations;
+        System.arraycopy(iterationNodes, 0, copy.iterationNodes, 0, completedIterations);
+        System.arraycopy(iterationMillis, 0, copy.iterationMillis, 0, completedIterations);
+        return copy;
+    }
+
+    // Returns the combined statistics of several workers
+    // The iterations are those of the first worker, which is the main worker of a search
+    public static SearchStatistics sum(SearchStatistics... statistics) {
+        SearchStatistics total = statistics.length > 0 ? statistics[0].snapshot() : new SearchStatistics();
+        for (int i = 1; i < statistics.length; i++) {
+            total.add(statistics[i]);
+        }
+
+        return total;
+    }
+
+    // Adds the counters and iterations of other statistics, from a search of another position, to these
+    // Iterations are matched by index, so the branching factor is that of all the searches together; a search that completed
+    // fewer iterations adds no more nodes to the later ones
+    public void merge(SearchStatistics other) {
+        add(other);
+        int iterations = Math.max(completedIterations, other.completedIterations);
+        for (int i = iterations - 1; i >= 0; i--) {
+            long ownNodes = completedIterations > 0 ? iterationNodes[Math.min(i, completedIterations - 1)] : 0;
+            long otherNodes = other.completedIterations > 0 ? other.iterationNodes[Math.min(i, other.completedIterations - 1)] : 0;
+            iterationNodes[i] = ownNodes + otherNodes;
+            iterationMillis[i] = (i < completedIterations ? iterationMillis[i] : 0) + (i < other.completedIterations ? other.iterationMillis[i] : 0);
+        }
+        completedIterations = iterations;
+    }
+
+    // Adds the counters of other statistics to these
+    private void add(SearchStatistics other) {
+        nodes += other.nodes;
+        quiescenceNodes += other.quiescenceNodes;
+        ttProbes += other.ttProbes;
+        ttHits += other.ttHits;
+        ttCutoffs += other.ttCutoffs;
+        betaCutoffs += other.betaCutoffs;
+        firstMoveCutoffs += other.firstMoveCutoffs;
+        nullMoveSearches += other.nullMoveSearches;
+        nullMoveCutoffs += other.nullMoveCutoffs;
+        reducedSearches += other.reducedSearches;
+        reducedReSearches += other.reducedReSearches;
+        zeroWindowSearches += other.zeroWindowSearches;
+        zeroWindowReSearches += other.zeroWindowReSearches;
+    }
+
+    // Returns the number of positions searched, including quiescence nodes
+    public long nodes() {
+        return nodes;
+    }
+
+    // Returns the number of positions searched by the quiescence search
+    public long quiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    // Returns the number of transposition table lookups
+    public long ttProbes() {
+        return ttProbes;
+    }
+
+    // Returns the number of lookups that found an entry for the position
+    public long ttHits() {
+        return ttHits;
+    }
+
+    // Returns the number of lookups whose entry ended the search of the position
+    public long ttCutoffs() {
+        return ttCutoffs;
+    }
+
+    // Returns the number of positions where a move failed high
+    public long betaCutoffs() {
+        return betaCutoffs;
+    }
+
+    // Returns the number of beta cutoffs caused by the first move searched
+    public long firstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    // Returns the number of null moves tried
+    public long nullMoveSearches() {
+        return nullMoveSearches;
+    }
+
+    // Returns the number of null moves that failed high
+    public long nullMoveCutoffs() {
+        return nullMoveCutoffs;
+    }
+
+    // Returns the number of moves searched at a reduced depth by late move reductions
+    public long reducedSearches() {
+        return reducedSearches;
+    }
+
+    // Returns the number of reduced moves that had to be searched again at full depth
+    public long reducedReSearches() {
+        return reducedReSearches;
+    }
+
+    // Returns the number of moves searched with a zero window by principal variation search
+    public long zeroWindowSearches() {
+        return zeroWindowSearches;
+    }
+
+    // Returns the number of zero window searches that had to be repeated with the full window
+    public long zeroWindowReSearches() {
+        return zeroWindowReSearches;
+    }
+
+    // Returns the number of iterations of iterative deepening that completed
+    public int completedIterations() {
+        return completedIterations;
+    }
+
+    // Returns the milliseconds taken by the given completed iteration, counting from 0
+    public long iterationMillis(int iteration) {
+        return iterationMillis[iteration];
+    }
+
+    // Returns the nodes searched during the given completed iteration, counting from 0
+    public long iterationNodes(int iteration) {
+        return iteration == 0 ? iterationNodes[0] : iterationNodes[iteration] - iterationNodes[iteration - 1];
+    }
+
+    // Returns the fraction of transposition table lookups that found an entry
+    public double ttHitRate() {
+        return ratio(ttHits, ttProbes);
+    }
+
+    // Returns the fraction of beta cutoffs caused by the first move, which measures how good move ordering is
+    public double firstMoveCutoffRate() {
+        return ratio(firstMoveCutoffs, betaCutoffs);
+    }
+
+    // Returns the fraction of null moves that failed high
+    public double nullMoveCutoffRate() {
+        return ratio(nullMoveCutoffs, nullMoveSearches);
+    }
+
+    // Returns the fraction of reduced moves that had to be searched again, which is high when reductions are too aggressive
+    public double reducedReSearchRate() {
+        return ratio(reducedReSearches, reducedSearches);
+    }
+
+    // Returns the fraction of zero window searches that had to be repeated
+    public double zeroWindowReSearchRate() {
+        return ratio(zeroWindowReSearches, zeroWindowSearches);
+    }
+
+    // Returns the fraction of nodes searched by the quiescence search
+    public double quiescenceNodeRate() {
+        return ratio(quiescenceNodes, nodes);
+    }
+
+    // Returns how many times more nodes the last completed iteration needed than the one before it, or 0 if unknown
+    public double effectiveBranchingFactor() {
+        if (completedIterations < 2) {
+            return 0;
+        }
+
+        return ratio(iterationNodes(completedIterations - 1), iterationNodes(completedIterations - 2));
+    }
+
+    @Override
+    public String toString() {
+        String branchingFactor = completedIterations >= 2 ? String.format("%.2f", effectiveBranchingFactor()) : "n/a";
+        return String.format("nodes %d (quiescence %.1f%%), tt hits %.1f%% cutoffs %d, first move cutoffs %.1f%%, null move cutoffs %.1f%%, "
+                             + "lmr re-searches %.1f%%, pvs re-searches %.1f%%, branching factor %s",
+                             nodes, 100 * quiescenceNodeRate(), 100 * ttHitRate(), ttCutoffs, 100 * firstMoveCutoffRate(),
+                             100 * nullMoveCutoffRate(), 100 * reducedReSearchRate(), 100 * zeroWindowReSearchRate(), branchingFactor);
+    }
+
+    // Divides two counts, returning 0 when there is nothing to divide
+    private static double ratio(long part, long whole) {
+        return whole > 0 ? (double)part / whole : 0;
+    }
+}
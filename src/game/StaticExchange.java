@@ -0,0 +1,129 @@
+package game;
+
+import boardcomponents.Board;
+import boardcomponents.Move;
+
+public class StaticExchange {
+
+    // Static exchange evaluation (SEE) works out the material won or lost by a capture once every piece attacking the target tile
+    // has had the chance to recapture, without making any moves
+    // Each side recaptures with its least valuable attacker, and may stop recapturing whenever continuing would lose material
+    // Sliding pieces behind a capturing piece (x-rays) join the exchange once the piece in front of them has captured
+    // Pins are ignored, so the result is an estimate, but it is cheap enough to call for every capture
+    // Credit to the Chess Programming Wiki for information on static exchange evaluation
+
+    // Piece values, in the bitboard order K, Q, R, B, N, P
+    static final int[] pieceValues = {10000, 1000, 500, 350, 300, 100};
+
+    // gain[d] is the material won by the player making capture d, if the exchange stopped after it
+    // It is reused between calls, so each search thread needs its own evaluator
+    private final int[] gain = new int[32];
+
+    // Returns the material the player making the move can expect to gain from it, which is negative if the move loses material
+    // move is encoded as described in Move, and must be legal on the board
+    public int evaluate(Board board, int move) {
+        long[] bitboards = board.pieceBitboards();
+        int origin = Move.origin(move);
+        int target = Move.target(move);
+        boolean whiteMoving = Move.piece(move) < 6;
+
+        long occupied = 0L;
+        for (int i = 0; i < 12; i++) {
+            occupied |= bitboards[i];
+        }
+
+        int depth = 0;
+        gain[0] = Move.isCapture(move) ? pieceValues[Move.captured(move) % 6] : 0;
+        int pieceOnTarget = Move.piece(move) % 6; // The piece that the next capture would take
+        if (Move.isPromotion(move)) {
+            pieceOnTarget = Move.promotion(move) % 6;
+            gain[0] += pieceValues[pieceOnTarget] - pieceValues[5];
+        }
+
+        occupied &= ~(1L << origin);
+        if ((Move.flags(move) & Move.EN_PASSANT) != 0) {
+            occupied &= ~(1L << (whiteMoving ? target - 8 : target + 8));
+        }
+
+        long attackers = attackersTo(bitboards, target, occupied) & occupied;
+        long diagonalSliders = bitboards[1] | bitboards[3] | bitboards[7] | bitboards[9];
+        long straightSliders = bitboards[1] | bitboards[2] | bitboards[7] | bitboards[8];
+        long white = bitboards[0] | bitboards[1] | bitboards[2] | bitboards[3] | bitboards[4] | bitboards[5];
+        long black = bitboards[6] | bitboards[7] | bitboards[8] | bitboards[9] | bitboards[10] | bitboards[11];
+        boolean whiteToCapture = !whiteMoving;
+
+        while (true) {
+            // Find the least valuable attacker of the player to capture
+            long sideAttackers = attackers & (whiteToCapture ? white : black);
+            if (sideAttackers == 0) {
+                break;
+            }
+
+            int offset = whiteToCapture ? 0 : 6;
+            int attacker = 5;
+            long attackerPosition = 0L;
+            for (; attacker >= 0; attacker--) {
+                attackerPosition = sideAttackers & bitboards[offset + attacker];
+                if (attackerPosition != 0) {
+                    break;
+                }
+            }
+            attackerPosition = Long.lowestOneBit(attackerPosition);
+
+            // A king may only recapture if the opponent has nothing left to recapture with
+            if (attacker == 0 && (attackers & ~sideAttackers) != 0) {
+                break;
+            }
+
+            // Recapturing can only do worse than gain[depth] once the opponent replies, so if that is no better than
+            // stopping the exchange here, this player stops and the rest of the exchange does not matter
+            int recaptureGain = pieceValues[pieceOnTarget] - gain[depth];
+            if (recaptureGain <= -gain[depth] || depth == gain.length - 1) {
+                break;
+            }
+            depth++;
+            gain[depth] = recaptureGain;
+
+            occupied ^= attackerPosition;
+            attackers &= occupied;
+            // Add sliding pieces that were behind the capturing piece
+            if (attacker == 5 || attacker == 3 || attacker == 1) {
+                attackers |= AttackTables.bishopAttacks(target, occupied) & diagonalSliders & occupied;
+            }
+            if (attacker == 2 || attacker == 1) {
+                attackers |= AttackTables.rookAttacks(target, occupied) & straightSliders & occupied;
+            }
+
+            pieceOnTarget = attacker;
+            whiteToCapture = !whiteToCapture;
+        }
+
+        // Each player stops recapturing when it would lose material, working back from the end of the exchange
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+
+        return gain[0];
+    }
+
+    // Returns whether the move is expected to lose material
+    public boolean isLosing(Board board, int move) {
+        // Capturing a piece at least as valuable as the capturing piece can never lose material
+        if (Move.isCapture(move) && pieceValues[Move.captured(move) % 6] >= pieceValues[Move.piece(move) % 6]) {
+            return false;
+        }
+
+        return evaluate(board, move) < 0;
+    }
+
+    // Returns the pieces of both colors attacking a tile, given the occupied tiles
+    private static long attackersTo(long[] bitboards, int position, long occupied) {
+        return (AttackTables.pawnAttacks(false, position) & bitboards[5])
+               | (AttackTables.pawnAttacks(true, position) & bitboards[11])
+               | (AttackTables.knightAttacks(position) & (bitboards[4] | bitboards[10]))
+               | (AttackTables.kingAttacks(position) & (bitboards[0] | bitboards[6]))
+               | (AttackTables.bishopAttacks(position, occupied) & (bitboards[1] | bitboards[3] | bitboards[7] | bitboards[9]))
+               | (AttackTables.rookAttacks(position, occupied) & (bitboards[1] | bitboards[2] | bitboards[7] | bitboards[8]));
+    }
+}
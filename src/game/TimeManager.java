@@ -0,0 +1,164 @@
+package game;
+
+public class TimeManager {
+
+    // Decides how long a search may run
+    // The soft limit is the time we aim to use: no new iteration is started after it, and it is scaled by how stable the best move is
+    // The hard limit is never exceeded: the search is interrupted when it is reached, even in the middle of an iteration
+    // A search may also be limited to a depth or a number of positions, which is useful for testing and analysis
+    // While pondering, the search thinks on the opponent's time and ignores both limits until a ponder hit starts the clock
+    // Credit to the Chess Programming Wiki for information on time management
+
+    private static final long moveOverhead = 30; // Milliseconds kept in reserve for communication and garbage collection
+    private static final int defaultMovesToGo = 30; // How many more moves we plan for when the clock has no moves-to-go
+    private static final int stableIterations = 4; // Iterations with the same best move after which the search is cut short
+
+    private final long softLimit; // Nanoseconds the search aims to use
+    private final long hardLimit; // Nanoseconds the search may never exceed
+    private final boolean flexible; // Whether the soft limit may be scaled by how stable the best move is
+    private int depthLimit = Integer.MAX_VALUE; // The deepest iteration the search may start
+    private long nodeLimit = Long.MAX_VALUE; // The positions all threads together may search
+    private volatile long startTime; // The value of System.nanoTime() when the search started, changed by a ponder hit
+    private volatile boolean pondering; // Whether the search is thinking on the opponent's time
+    private int lastBestMove; // The best move after the previous iteration
+    private int sameBestMoveCount; // How many iterations in a row ended with the same best move
+    private double stabilityScale; // The factor applied to the soft limit
+
+    private TimeManager(long softLimitMillis, long hardLimitMillis, boolean flexible) {
+        this.softLimit = toNanos(softLimitMillis);
+        this.hardLimit = toNanos(hardLimitMillis);
+        this.flexible = flexible;
+        start();
+    }
+
+    // Plans a search for a player with remainingMillis on their clock, who gains incrementMillis after each move
+    // movesToGo is the number of moves until the next time control, or 0 if the rest of the game must be played with this time
+    public static TimeManager forClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        long available = Math.max(1, remainingMillis - moveOverhead);
+        int moves = movesToGo > 0 ? Math.min(movesToGo, defaultMovesToGo) : defaultMovesToGo;
+
+        // The increment is only received after the move, so no more of it is counted than is already on the clock
+        long soft = available / moves + Math.min(incrementMillis, available) * 3 / 4;
+        // Never use more than a third of the clock on one move, unless it is the last move before the time control
+        long hard = movesToGo == 1 ? available : Math.max(1, Math.min(available / 3, soft * 4));
+        soft = Math.min(soft, hard);
+
+        return new TimeManager(soft, hard, true);
+    }
+
+    // Plans a search that uses exactly the given number of milliseconds
+    public static TimeManager fixed(long moveTimeMillis) {
+        return new TimeManager(moveTimeMillis, moveTimeMillis, false);
+    }
+
+    // Plans a search that only ends when it is stopped
+    public static TimeManager infinite() {
+        return new TimeManager(Long.MAX_VALUE, Long.MAX_VALUE, false);
+    }
+
+    // Limits the search to the given depth, and returns this time manager
+    public TimeManager limitDepth(int depth) {
+        depthLimit = Math.max(1, depth);
+        return this;
+    }
+
+    // Limits the search to the given number of positions, and returns this time manager
+    public TimeManager limitNodes(long nodes) {
+        nodeLimit = Math.max(1, nodes);
+        return this;
+    }
+
+    // Returns the deepest iteration the search may start
+    public int depthLimit() {
+        return depthLimit;
+    }
+
+    // Returns whether the search has searched as many positions as it may
+    public boolean nodeLimitReached(long nodes) {
+        return !pondering && nodes >= nodeLimit;
+    }
+
+    // Starts timing the search
+    public void start() {
+        startTime = System.nanoTime();
+        pondering = false;
+        lastBestMove = 0;
+        sameBestMoveCount = 0;
+        stabilityScale = 1.0;
+    }
+
+    // Makes the search ignore its limits until ponderHit or stopPondering is called
+    public void startPondering() {
+        pondering = true;
+    }
+
+    // Called when the opponent plays the move that was pondered on, starting the clock for the search
+    public synchronized void ponderHit() {
+        startTime = System.nanoTime();
+        pondering = false;
+        notifyAll();
+    }
+
+    // Ends pondering without starting the clock, used when the search is stopped
+    public synchronized void stopPondering() {
+        pondering = false;
+        notifyAll();
+    }
+
+    // Returns whether the search is thinking on the opponent's time
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    // Waits until pondering ends, since a pondering search may not report its move before the opponent has moved
+    public synchronized void awaitPonderEnd() throws InterruptedException {
+        while (pondering) {
+            wait();
+        }
+    }
+
+    // Returns the milliseconds since the search started
+    public long elapsedMillis() {
+        return (System.nanoTime() - startTime) / 1000000;
+    }
+
+    // Returns whether the search must be interrupted
+    public boolean hardLimitReached() {
+        return !pondering && System.nanoTime() - startTime >= hardLimit;
+    }
+
+    // Records the best move after an iteration, and returns whether the search should stop instead of starting another iteration
+    // A best move that keeps changing means the position is unclear, so more time is used, while a stable one lets the search stop early
+    public boolean iterationComplete(int bestMove) {
+        if (flexible) {
+            sameBestMoveCount = bestMove == lastBestMove ? sameBestMoveCount + 1 : 0;
+            lastBestMove = bestMove;
+
+            if (sameBestMoveCount == 0) {
+                stabilityScale = 1.5;
+            } else if (sameBestMoveCount >= stableIterations) {
+                stabilityScale = 0.6;
+            } else {
+                stabilityScale = 1.0;
+            }
+        }
+
+        if (pondering) {
+            return false;
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        long target = (long)Math.min(hardLimit, softLimit * stabilityScale);
+        if (elapsed >= target) {
+            return true;
+        }
+
+        // Each iteration takes several times longer than the last, so one started this late would likely be interrupted
+        return flexible && elapsed >= target / 2;
+    }
+
+    // Converts milliseconds to nanoseconds, keeping unlimited times unlimited
+    private static long toNanos(long millis) {
+        return millis >= Long.MAX_VALUE / 1000000 ? Long.MAX_VALUE : millis * 1000000;
+    }
+}
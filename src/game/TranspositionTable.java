@@ -1,104 +1,182 @@
 package game;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import boardcomponents.Board;
-
-public class TranspositionTable {
-    
-    private static int size = (int)Math.pow(2, 20); // The size of the hash table is large to avoid collisions. This will not be increased with use to save time
-    private ArrayList<LinkedList<Double>> dataTable; // This is where the evaluation of board states will be stored
-
-    public TranspositionTable() {
-        dataTable = new ArrayList<LinkedList<Double>>(size);
-        for (int i = 0; i < size; i++) {
-            dataTable.add(new LinkedList<Double>());
-        }
+import boardcomponents.Move;
+
+public abstract class TranspositionTable {
+
+    // The table is split into buckets of two entries, where each entry is two longs: a checked hash followed by its data
+    // A bucket is 32 bytes, so a probe reads one small contiguous block instead of following list nodes
+    // The first entry in a bucket is depth-preferred, keeping the deepest recent search of a position
+    // The second entry is always replaced, so recent positions are stored even when the first entry is deeper
+    // A position already in the bucket is always updated in place, so it never occupies both entries
+    //
+    // The data of an entry is packed into a long:
+    // Bits 0-31 hold the score as float bits, bits 32-47 the best move, bits 48-55 the depth,
+    // bits 56-57 the bound type and bits 58-63 the age of the search that stored it
+    //
+    // Instead of the hash itself, an entry stores the hash XORed with its data
+    // If two threads write an entry at once and its two longs end up coming from different writes, the check fails and the entry is treated as missing
+    // This lets several search threads share one table without locking
+    // Subclasses decide where the longs are kept
+
+    public static final int DEFAULT_SIZE_MB = 64; // Size of the table when none is specified
+    public static final int MAX_HEAP_SIZE_MB = 1024; // create stores larger tables off the Java heap
+
+    // Bound types, describing how the stored score relates to the true score
+    public static final int EXACT = 1; // The score is exact
+    public static final int LOWER_BOUND = 2; // The search failed high, so the true score is at least the stored score
+    public static final int UPPER_BOUND = 3; // The search failed low, so the true score is at most the stored score
+
+    protected static final int entrySize = 16; // Bytes used by one entry
+    protected static final int longsPerBucket = 4; // Two entries of a checked hash and data each
+
+    private final long bucketMask; // Used to find the bucket of a hash, since the number of buckets is a power of two
+    private int age; // The age of the current search, used to replace entries left over from earlier searches
+
+    // numBuckets must be a power of two
+    protected TranspositionTable(long numBuckets) {
+        bucketMask = numBuckets - 1;
+        age = 0;
     }
 
-    // Puts zobrist hash value and the evaluation into the dataTable
-    // Since int's are 64 bits, we can only use 32 bits of the hash for indices
-    // To control for collisions, we store the zobrist hash as well
-    public void put(Board boardState, double evaluation) {
-        long hash = boardState.zobristHash();
-        int index = (int)(Math.abs(hash) % size);
-        LinkedList<Double> list = dataTable.get(index);
-        
-        if (list == null) {
-            // If this index has not been accessed before, create a linked list to store values
-            list = new LinkedList<Double>();
-            list.add((double)hash);
-            list.add(evaluation);
-        } else {
-            // This list exists, meaning it has been accessed before and contains at least one element
-            // Thus, we need to check for conflicts (same zobrist hash values)
-            int listIndex = 0;
-            boolean conflict = false;
-            for (Double value : list) {
-                if (listIndex % 2 == 0 && value == (double)hash) { // Even indices are for hash values
-                    // There's a conflict when the value is the same as the hash code
-                    conflict = true;
+    // Creates a table that uses at most the given number of megabytes
+    // Large tables are kept off the Java heap, so they do not count against it or slow down garbage collection
+    // If there is not enough memory for the table, the size is halved until it fits, so check sizeMB for the size created
+    public static TranspositionTable create(int sizeMB) {
+        while (true) {
+            try {
+                if (sizeMB > MAX_HEAP_SIZE_MB) {
+                    return new OffHeapTranspositionTable(sizeMB);
                 }
 
-                listIndex++;
-            }
-
-            // Only add value if there is not a conflict
-            if (!conflict) {
-                list.add((double)hash);
-                list.add(evaluation);
+                return new HeapTranspositionTable(sizeMB);
+            } catch (OutOfMemoryError e) {
+                // Direct memory is limited by -XX:MaxDirectMemorySize, and the heap by -Xmx
+                if (sizeMB <= 1) {
+                    throw e;
+                }
+                sizeMB /= 2;
             }
         }
     }
 
-    // Checks if a value with the specified board state has been added
-    public boolean contains(Board boardState) {
-        long hash = boardState.zobristHash();
-        int index = (int)(Math.abs(hash) % size);
-
-        // Given that most lists will either have 0 or 1 elements and dataTable.get(index) is O(1), then it should be constant time access
-        LinkedList<Double> list = dataTable.get(index);
-        if (list == null || list.isEmpty()) { // List is empty, meaning boardState evaluation not contained
-            return false;
-        } else {
-            int listIndex = 0;
-            // Enhanced for loops allow for O(N) access time in linked lists, which is the worst case
-            for (Double value : list) { // Check for value in even index that equals the hash
-                if (listIndex % 2 == 0 && value == (double)hash) {
-                    return true;
-                }
+    // Returns the number of megabytes the table uses
+    public int sizeMB() {
+        return (int)((bucketMask + 1) * longsPerBucket * Long.BYTES / (1024 * 1024));
+    }
 
-                listIndex++;
-            }
+    // Returns the number of buckets that fit in the given number of megabytes, rounded down to a power of two
+    protected static long bucketsForSize(int sizeMB) {
+        long numEntries = Math.max(2L, (long)sizeMB * 1024 * 1024 / entrySize);
+        return Long.highestOneBit(numEntries / 2);
+    }
+
+    // Returns the long at the given index
+    protected abstract long read(long index);
+
+    // Replaces the long at the given index
+    protected abstract void write(long index, long value);
+
+    // Removes all entries
+    public abstract void clear();
+
+    // Returns the data stored for the given hash, or 0 if the table does not contain it
+    public long probe(long hash) {
+        long index = bucketIndex(hash);
+
+        long data = read(index + 1);
+        if (data != 0 && (read(index) ^ data) == hash) {
+            return data;
+        }
+        data = read(index + 3);
+        if (data != 0 && (read(index + 2) ^ data) == hash) {
+            return data;
         }
 
-        return false;
+        return 0L;
     }
 
-    // Get the evaluation for the given boardState
-    // Return null if it is not in the dataTable
-    public Double get(Board boardState) {
-        if (!contains(boardState)) {
-            return null;
+    // Stores the result of searching a position
+    // move is encoded as described in Move, and may be Move.NO_MOVE if no best move is known
+    public void store(long hash, int depth, int bound, int move, double score) {
+        long index = bucketIndex(hash);
+        long storedData = read(index + 1);
+        long otherData = read(index + 3);
+
+        // Update the entry that already holds the position, if there is one
+        // Otherwise, replace the depth-preferred entry if this search is at least as deep or the entry is from an earlier search,
+        // and use the always-replace entry if not
+        boolean inFirst = storedData != 0 && (read(index) ^ storedData) == hash;
+        boolean inSecond = otherData != 0 && (read(index + 2) ^ otherData) == hash;
+        if (inSecond || (!inFirst && storedData != 0 && depth < depth(storedData) && age(storedData) == age)) {
+            index += 2;
+            storedData = otherData;
         }
 
-        long hash = boardState.zobristHash();
-        int index = (int)(Math.abs(hash) % size);
-
-        LinkedList<Double> list = dataTable.get(index);
-        boolean returnNextElement = false;
-        int listIndex = 0;
-        
-        for (Double value : list) { // Check for value in even index that equals the hash
-            if (listIndex % 2 == 0 && value == (double)hash) {
-                returnNextElement = true;
-            } else if (returnNextElement) {
-                return value;
-            }
+        // Keep the best move of the position if this search did not find one
+        int shortMove = toShortMove(move);
+        if (shortMove == 0 && storedData != 0 && (read(index) ^ storedData) == hash) {
+            shortMove = (int)((storedData >>> 32) & 0xFFFF);
+        }
+
+        long data = pack(depth, bound, shortMove, score);
+        write(index, hash ^ data);
+        write(index + 1, data);
+    }
+
+    // Starts a new search, so that entries from previous searches are replaced first
+    public void newSearch() {
+        age = (age + 1) & 0x3F;
+    }
+
+    // Resets the age once every entry has been removed
+    protected void resetAge() {
+        age = 0;
+    }
+
+    // Returns the score of an entry
+    public static double score(long data) {
+        return Float.intBitsToFloat((int)data);
+    }
+
+    // Returns the depth that an entry was searched to
+    public static int depth(long data) {
+        return (int)((data >>> 48) & 0xFF);
+    }
+
+    // Returns the bound type of an entry
+    public static int bound(long data) {
+        return (int)((data >>> 56) & 0x3);
+    }
 
-            listIndex++;
+    // Returns whether the best move of an entry is the given move
+    // Only the origin, target and promotion of the move are stored, so the full move must come from move generation
+    public static boolean isBestMove(long data, int move) {
+        int shortMove = (int)((data >>> 32) & 0xFFFF);
+        return shortMove != 0 && shortMove == toShortMove(move);
+    }
+
+    // Returns the age of an entry
+    private static int age(long data) {
+        return (int)(data >>> 58);
+    }
+
+    // Packs the data of an entry into a long
+    private long pack(int depth, int bound, int shortMove, double score) {
+        return (Float.floatToRawIntBits((float)score) & 0xFFFFFFFFL) | (long)shortMove << 32 | (long)Math.max(0, Math.min(depth, 0xFF)) << 48 | (long)bound << 56 | (long)age << 58;
+    }
+
+    // Reduces a move to the 16 bits stored in the table
+    private static int toShortMove(int move) {
+        if (move == Move.NO_MOVE) {
+            return 0;
         }
 
-        return null;
+        return Move.origin(move) | Move.target(move) << 6 | Move.promotion(move) << 12;
+    }
+
+    // Returns the index of the first long of the bucket for the given hash
+    private long bucketIndex(long hash) {
+        return (hash & bucketMask) * longsPerBucket;
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,56 @@
 package gui;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Scanner;
+
+import boardcomponents.Board;
+import game.Bench;
 import game.Game;
+import game.Perft;
+import game.PerftSuite;
 
 public class Main {
+    // Size of the perft cache in megabytes
+    private static final int perftCacheSizeMB = 256;
+
+    // Starts the interactive console, or the UCI front-end when run with the argument "uci" or when the first command is "uci"
+    // "perft <file> [max depth]" runs a perft suite file, and "divide <depth> [fen]" counts the positions after each move
+    // "bench [depth] [hash size in MB]" searches a fixed set of positions and prints the nodes, speed and signature
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("uci")) {
+            new Uci().run(new Scanner(System.in), null);
+            return;
+        } else if (args.length > 0 && args[0].equals("bench")) {
+            int depth = args.length > 1 ? Integer.parseInt(args[1]) : Bench.DEFAULT_DEPTH;
+            int hashSizeMB = args.length > 2 ? Integer.parseInt(args[2]) : Bench.DEFAULT_HASH_SIZE_MB;
+            new Bench().run(depth, hashSizeMB);
+            return;
+        } else if (args.length > 1 && args[0].equals("perft")) {
+            Perft perft = new Perft(Runtime.getRuntime().availableProcessors(), perftCacheSizeMB);
+            try {
+                int mismatches = new PerftSuite(perft).run(args[1], args.length > 2 ? Integer.parseInt(args[2]) : Integer.MAX_VALUE);
+                perft.shutdown();
+                System.exit(mismatches == 0 ? 0 : 1);
+            } catch (IOException e) {
+                System.err.println("Failed to read " + args[1] + ": " + e.getMessage());
+                System.exit(2);
+            }
+        } else if (args.length > 1 && args[0].equals("divide")) {
+            String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+            if (args.length > 2) {
+                fen = String.join(" ", Arrays.copyOfRange(args, 2, args.length));
+            }
+            Perft perft = new Perft(Runtime.getRuntime().availableProcessors(), perftCacheSizeMB);
+            for (Map.Entry<String, Long> entry : perft.divide(new Board(fen), Integer.parseInt(args[1])).entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+            }
+            System.out.println("Total: " + perft.nodes() + " in " + perft.elapsedMillis() + " ms, " + perft.nodesPerSecond() + " nodes/s");
+            perft.shutdown();
+            return;
+        }
+
         System.out.println("Welcome to a Chess Engine and AI.");
         System.out.println("To begin playing, enter 'start'. To exit at any time, enter 'exit'.");
 
@@ -26,7 +72,10 @@ public class Main {
                 System.err.println("Failed to accept input");
             }
 
-            if (input.compareTo("exit") == 0 && !beganGame) {
+            if (input.compareTo("uci") == 0 && !beganGame) {
+                new Uci().run(keyboard, input);
+                break;
+            } else if (input.compareTo("exit") == 0 && !beganGame) {
                 play = false;
                 break;
             } else if (input.compareTo("start") == 0 && !beganGame) {
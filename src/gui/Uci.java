@@ -0,0 +1,282 @@
+package gui;
+
+import java.util.Scanner;
+
+import boardcomponents.Move;
+import game.Bench;
+import game.Game;
+import game.Search;
+import game.SearchHandle;
+import game.SearchInfo;
+import game.TimeManager;
+import game.TranspositionTable;
+
+public class Uci {
+
+    // Lets the engine be used by chess GUIs and tournament managers through the Universal Chess Interface (UCI)
+    // Commands are read from standard input and answered on standard output
+    // Searches run in the background, so that stop and ponderhit are handled while the engine is thinking
+    // Credit to the UCI specification by Stefan Meyer-Kahlen for the protocol
+
+    private static final String startPosition = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int maxHashSizeMB = 65536;
+    private static final int maxThreads = 256;
+
+    private final Game game = new Game(startPosition, true); // The game holding the current position
+    private SearchHandle search; // The most recent search, which may still be running
+
+    // Answers commands until "quit" is received or the input ends
+    // firstCommand is a command that was already read from the input, or null
+    public void run(Scanner input, String firstCommand) {
+        if (firstCommand != null && !handleCommand(firstCommand)) {
+            return;
+        }
+
+        while (input.hasNextLine()) {
+            if (!handleCommand(input.nextLine())) {
+                break;
+            }
+        }
+
+        stopSearch();
+    }
+
+    // Carries out a single command, and returns false if the engine should exit
+    private boolean handleCommand(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                System.out.println("id name Chess Engine");
+                System.out.println("id author Chess Engine developers");
+                System.out.println("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB + " min 1 max " + maxHashSizeMB);
+                System.out.println("option name Threads type spin default 1 min 1 max " + maxThreads);
+                System.out.println("option name Ponder type check default false");
+                System.out.println("uciok");
+                break;
+            case "isready":
+                System.out.println("readyok");
+                break;
+            case "ucinewgame":
+                stopSearch();
+                game.clearHash();
+                game.reset(startPosition, true);
+                break;
+            case "setoption":
+                stopSearch();
+                setOption(tokens);
+                break;
+            case "position":
+                stopSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                stopSearch();
+                go(tokens);
+                break;
+            case "stop":
+                if (search != null) {
+                    search.stop();
+                }
+                break;
+            case "ponderhit":
+                if (search != null) {
+                    search.ponderHit();
+                }
+                break;
+            case "bench":
+                // Not part of UCI, but engines commonly accept it so that tools can check their speed and signature
+                stopSearch();
+                try {
+                    new Bench().run(tokens.length > 1 ? Integer.parseInt(tokens[1]) : Bench.DEFAULT_DEPTH, Bench.DEFAULT_HASH_SIZE_MB);
+                } catch (NumberFormatException e) {
+                    System.out.println("info string invalid depth " + tokens[1]);
+                }
+                break;
+            case "quit":
+                return false;
+            default:
+                // Unknown commands are ignored, as the protocol requires
+                break;
+        }
+
+        return true;
+    }
+
+    // Handles "setoption name <name> value <value>"
+    private void setOption(String[] tokens) {
+        String name = valueAfter(tokens, "name");
+        String value = valueAfter(tokens, "value");
+        if (name == null || value == null) {
+            return;
+        }
+
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                int sizeMB = Math.max(1, Math.min(maxHashSizeMB, Integer.parseInt(value)));
+                int createdMB = game.setHashSize(sizeMB);
+                // Tables are rounded down to a power of two, so only a table smaller than that was cut short by a lack of memory
+                if (createdMB < Integer.highestOneBit(sizeMB)) {
+                    System.out.println("info string not enough memory for " + sizeMB + " MB of hash, using " + createdMB + " MB");
+                }
+            } else if (name.equalsIgnoreCase("Threads")) {
+                game.setThreads(Math.max(1, Math.min(maxThreads, Integer.parseInt(value))));
+            }
+            // Ponder only tells us that the GUI may send "go ponder", which needs no setup
+        } catch (NumberFormatException e) {
+            System.out.println("info string invalid value " + value + " for option " + name);
+        }
+    }
+
+    // Handles "position [startpos | fen <fen>] [moves <move> ...]"
+    private void setPosition(String[] tokens) {
+        String fen = startPosition;
+        int index = 1;
+        if (tokens.length > 1 && tokens[1].equals("fen")) {
+            StringBuilder fenBuilder = new StringBuilder();
+            int fields = 0;
+            for (index = 2; index < tokens.length && !tokens[index].equals("moves"); index++) {
+                fenBuilder.append(tokens[index]).append(' ');
+                fields++;
+            }
+            // The halfmove and fullmove counters are optional in some GUIs
+            if (fields == 4) {
+                fenBuilder.append("0 1");
+            } else if (fields == 5) {
+                fenBuilder.append("1");
+            }
+            fen = fenBuilder.toString().trim();
+        } else {
+            index = 2;
+        }
+
+        game.reset(fen, true);
+
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            for (index++; index < tokens.length; index++) {
+                if (!game.makeMove(tokens[index])) {
+                    System.out.println("info string illegal move " + tokens[index]);
+                    break;
+                }
+            }
+        }
+    }
+
+    // Handles "go" with its limits, and starts the search in the background
+    // The best move is printed once the search ends
+    private void go(String[] tokens) {
+        boolean white = game.whiteToPlay();
+        long remaining = -1;
+        long increment = 0;
+        int movesToGo = 0;
+        long moveTime = -1;
+        int depth = -1;
+        long nodes = -1;
+        boolean infinite = false;
+        boolean ponder = false;
+
+        for (int i = 1; i < tokens.length; i++) {
+            String next = i + 1 < tokens.length ? tokens[i + 1] : "0";
+            try {
+                switch (tokens[i]) {
+                    case "wtime": if (white) remaining = Long.parseLong(next); i++; break;
+                    case "btime": if (!white) remaining = Long.parseLong(next); i++; break;
+                    case "winc": if (white) increment = Long.parseLong(next); i++; break;
+                    case "binc": if (!white) increment = Long.parseLong(next); i++; break;
+                    case "movestogo": movesToGo = Integer.parseInt(next); i++; break;
+                    case "movetime": moveTime = Long.parseLong(next); i++; break;
+                    case "depth": depth = Integer.parseInt(next); i++; break;
+                    case "nodes": nodes = Long.parseLong(next); i++; break;
+                    case "infinite": infinite = true; break;
+                    case "ponder": ponder = true; break;
+                    default: break;
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("info string invalid value " + next + " for " + tokens[i]);
+                i++;
+            }
+        }
+
+        TimeManager timeManager;
+        if (infinite) {
+            timeManager = TimeManager.infinite();
+        } else if (moveTime >= 0) {
+            timeManager = TimeManager.fixed(moveTime);
+        } else if (remaining >= 0) {
+            timeManager = TimeManager.forClock(remaining, increment, movesToGo);
+        } else {
+            timeManager = TimeManager.infinite();
+        }
+        if (depth > 0) {
+            timeManager.limitDepth(depth);
+        }
+        if (nodes > 0) {
+            timeManager.limitNodes(nodes);
+        }
+
+        // An infinite search must not report its move before "stop", even if it runs out of depth, which is how pondering behaves
+        search = game.startSearch(timeManager, ponder || infinite, Uci::printInfo);
+        SearchHandle handle = search;
+        handle.future().whenComplete((move, error) -> {
+            if (error != null) {
+                System.out.println("info string search failed: " + error);
+                System.out.println("bestmove 0000");
+                return;
+            }
+
+            String bestMove = "bestmove " + (move == Move.NO_MOVE ? "0000" : Move.toAlgebraic(move));
+            if (handle.ponderMove() != Move.NO_MOVE && move != Move.NO_MOVE) {
+                bestMove += " ponder " + Move.toAlgebraic(handle.ponderMove());
+            }
+            System.out.println(bestMove);
+        });
+    }
+
+    // Stops the running search, if any, and waits for it to print its best move
+    private void stopSearch() {
+        if (search == null) {
+            return;
+        }
+
+        search.stop();
+        try {
+            search.future().join();
+        } catch (RuntimeException e) {
+            // The failure has already been reported
+        }
+        search = null;
+    }
+
+    // Prints the progress of a search as an info line
+    private static void printInfo(SearchInfo info) {
+        String score;
+        if (Search.isMate(info.score())) {
+            // UCI counts mates in moves rather than plies, negative when the engine is getting mated
+            int plies = Search.matePlies(info.score());
+            score = "mate " + (info.score() > 0 ? (plies + 1) / 2 : -(plies / 2));
+        } else {
+            score = "cp " + Math.round(info.score());
+        }
+
+        System.out.println("info depth " + info.depth() + " score " + score + " nodes " + info.nodes() + " nps " + info.nodesPerSecond()
+                           + " time " + info.timeMillis() + " pv " + info.principalVariationString());
+    }
+
+    // Returns the words after the given keyword up to the next keyword of setoption, or null if the keyword is missing
+    private static String valueAfter(String[] tokens, String keyword) {
+        StringBuilder value = new StringBuilder();
+        boolean found = false;
+        for (String token : tokens) {
+            if (found && (token.equals("name") || token.equals("value"))) {
+                break;
+            }
+            if (found) {
+                value.append(value.length() > 0 ? " " : "").append(token);
+            }
+            if (token.equals(keyword)) {
+                found = true;
+            }
+        }
+
+        return found ? value.toString() : null;
+    }
+}